@@ -0,0 +1,56 @@
+package com.mrivanplays.pagedinventory.api;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a {@link Page} fetched by a {@link CursorPageProvider}, along with the opaque cursor
+ * which continues right after it.
+ *
+ * @param <C> cursor type
+ */
+public final class CursorPage<C> {
+
+  private final Page page;
+  private final C nextCursor;
+
+  /**
+   * Creates a new cursor page
+   *
+   * @param page the page fetched
+   * @param nextCursor the cursor to fetch the next page with, or null if this is the last page
+   * @param <C> cursor type
+   * @return cursor page
+   */
+  @NotNull
+  public static <C> CursorPage<C> create(@NotNull Page page, @Nullable C nextCursor) {
+    Preconditions.checkNotNull(page, "page");
+    return new CursorPage<>(page, nextCursor);
+  }
+
+  private CursorPage(Page page, C nextCursor) {
+    this.page = page;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Returns the fetched {@link Page}
+   *
+   * @return page
+   */
+  @NotNull
+  public Page getPage() {
+    return page;
+  }
+
+  /**
+   * Returns the cursor to fetch the next page with.
+   *
+   * @return next cursor, or null if this is the last page
+   */
+  @Nullable
+  public C getNextCursor() {
+    return nextCursor;
+  }
+}
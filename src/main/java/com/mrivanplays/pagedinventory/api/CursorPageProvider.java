@@ -0,0 +1,43 @@
+package com.mrivanplays.pagedinventory.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a provider of {@link Page Pages} over data whose size is unknown, fetching every page
+ * by the opaque cursor the page before it returned (e.g. the key of its last row), instead of by a
+ * page number. Pages are fetched per viewer, and going back re-fetches the previous page from the
+ * cursor remembered for it.
+ *
+ * @param <C> cursor type
+ * @see PagedInventoryBuilder#cursorPageProvider(CursorPageProvider, int)
+ */
+public interface CursorPageProvider<C> {
+
+  /**
+   * Fetches the page starting right after the specified cursor. This is called on the server
+   * thread.
+   *
+   * @param cursor cursor returned along with the previous page, or null for the first page
+   * @return the fetched page along with the cursor of the next one
+   */
+  @NotNull
+  CursorPage<C> fetchPage(@Nullable C cursor);
+
+  /**
+   * Fetches the page starting right after the specified cursor asynchronously. This is only used
+   * when asynchronous page loading is enabled on the {@link PagedInventoryBuilder}. By default
+   * {@link #fetchPage(Object)} is called on the specified executor.
+   *
+   * @param cursor cursor returned along with the previous page, or null for the first page
+   * @param executor the executor of the paged inventory
+   * @return future of the fetched page along with the cursor of the next one
+   */
+  @NotNull
+  default CompletableFuture<CursorPage<C>> fetchPageAsync(
+      @Nullable C cursor, @NotNull Executor executor) {
+    return CompletableFuture.supplyAsync(() -> fetchPage(cursor), executor);
+  }
+}
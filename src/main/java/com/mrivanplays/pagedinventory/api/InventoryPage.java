@@ -0,0 +1,47 @@
+package com.mrivanplays.pagedinventory.api;
+
+import java.util.UUID;
+import org.bukkit.inventory.Inventory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** The {@link Page} created by {@link Page#create(Inventory, String)} and its overloads. */
+final class InventoryPage implements Page {
+
+  private final Inventory inventory;
+  private final String title;
+  private final boolean titleKnown;
+  private UUID uuid;
+
+  InventoryPage(Inventory inventory, String title, boolean titleKnown) {
+    this.inventory = inventory;
+    this.title = title;
+    this.titleKnown = titleKnown;
+  }
+
+  @Override
+  @NotNull
+  public Inventory getInventory() {
+    return inventory;
+  }
+
+  @Override
+  @Nullable
+  public String getTitle() {
+    return title;
+  }
+
+  @Override
+  public boolean isTitleKnown() {
+    return titleKnown;
+  }
+
+  @Override
+  @NotNull
+  public UUID getPageUUID() {
+    if (uuid == null) {
+      uuid = UUID.randomUUID();
+    }
+    return uuid;
+  }
+}
@@ -0,0 +1,68 @@
+package com.mrivanplays.pagedinventory.api;
+
+/**
+ * Reports how well the {@link org.bukkit.inventory.ItemStack ItemStacks} held by paged inventories
+ * got deduplicated. Identical items held by the library itself, such as navigation bars, layout
+ * fillers, personal items and items read from an iterator, share a single canonical instance. Page
+ * inventories still hold a copy of their own of every item, as Bukkit copies items put into them.
+ *
+ * @see PagedInventory#getItemFootprint()
+ */
+public final class ItemFootprint {
+
+  private final long interned;
+  private final long deduplicated;
+  private final int distinct;
+
+  /**
+   * Creates a new footprint report
+   *
+   * @param interned how many items were interned
+   * @param deduplicated how many of the interned items were replaced by an identical canonical one
+   * @param distinct how many canonical items are alive
+   */
+  public ItemFootprint(long interned, long deduplicated, int distinct) {
+    this.interned = interned;
+    this.deduplicated = deduplicated;
+    this.distinct = distinct;
+  }
+
+  /**
+   * Returns how many items were interned so far.
+   *
+   * @return interned items
+   */
+  public long getInterned() {
+    return interned;
+  }
+
+  /**
+   * Returns how many of the interned items were replaced by an identical canonical one, i.e. how
+   * many copies aren't held.
+   *
+   * @return deduplicated items
+   */
+  public long getDeduplicated() {
+    return deduplicated;
+  }
+
+  /**
+   * Returns how many distinct canonical items are alive right now.
+   *
+   * @return distinct items
+   */
+  public int getDistinct() {
+    return distinct;
+  }
+
+  @Override
+  public String toString() {
+    return "ItemFootprint{interned="
+        + interned
+        + ", deduplicated="
+        + deduplicated
+        + ", distinct="
+        + distinct
+        + "}";
+  }
+}
@@ -0,0 +1,290 @@
+package com.mrivanplays.pagedinventory.api;
+
+import com.google.common.base.Preconditions;
+import com.mrivanplays.pagedinventory.internal.MenuCompiler;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds declarative menu definitions loaded from files or plugin resources, each compiled once into
+ * a {@link MenuLayout}. Reloading only recompiles the definitions whose files have changed.
+ *
+ * @see MenuCompiler
+ */
+public final class MenuDefinitions {
+
+  private final Plugin plugin;
+  private final Map<String, Definition> definitions;
+  private final Map<File, Set<String>> directories;
+
+  /**
+   * Creates a new, empty {@link MenuDefinitions}.
+   *
+   * @param plugin plugin whose resources can be loaded and under whom problems are logged
+   */
+  public MenuDefinitions(@NotNull Plugin plugin) {
+    this.plugin = Preconditions.checkNotNull(plugin, "plugin");
+    this.definitions = new ConcurrentHashMap<>();
+    this.directories = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Loads and compiles the menu definition in the specified file.
+   *
+   * @param name menu name
+   * @param file definition file
+   * @return compiled layout
+   * @throws IOException if the file can't be read or isn't valid yaml
+   * @throws IllegalArgumentException if the definition is invalid
+   */
+  @NotNull
+  public MenuLayout loadFile(@NotNull String name, @NotNull File file) throws IOException {
+    Preconditions.checkNotNull(name, "name");
+    Preconditions.checkNotNull(file, "file");
+    Definition definition = new Definition(file);
+    definition.compile(name, Files.readAllBytes(file.toPath()));
+    definitions.put(name, definition);
+    return definition.layout;
+  }
+
+  /**
+   * Loads and compiles the menu definition in the specified resource of the plugin. Resources
+   * can't change while the plugin runs, so they are never recompiled by {@link #reload()}.
+   *
+   * @param name menu name
+   * @param resource resource path
+   * @return compiled layout
+   * @throws IOException if the resource doesn't exist, can't be read or isn't valid yaml
+   * @throws IllegalArgumentException if the definition is invalid
+   */
+  @NotNull
+  public MenuLayout loadResource(@NotNull String name, @NotNull String resource)
+      throws IOException {
+    Preconditions.checkNotNull(name, "name");
+    Preconditions.checkNotNull(resource, "resource");
+    byte[] content;
+    try (InputStream in = plugin.getResource(resource)) {
+      if (in == null) {
+        throw new IOException("No such resource: " + resource);
+      }
+      content = readFully(in);
+    }
+    Definition definition = new Definition(null);
+    definition.compile(name, content);
+    definitions.put(name, definition);
+    return definition.layout;
+  }
+
+  /**
+   * Loads and compiles every {@code .yml} definition in the specified directory, each named by its
+   * file name without the extension. Definitions added to or removed from the directory are picked
+   * up by {@link #reload()}.
+   *
+   * @param directory directory
+   * @return names of the loaded menus
+   * @throws IOException if the directory can't be listed
+   */
+  @NotNull
+  public Set<String> loadDirectory(@NotNull File directory) throws IOException {
+    Preconditions.checkNotNull(directory, "directory");
+    Set<String> loaded = new HashSet<>();
+    for (File file : listDefinitions(directory)) {
+      String name = menuName(file);
+      try {
+        loadFile(name, file);
+        loaded.add(name);
+      } catch (IOException | IllegalArgumentException e) {
+        plugin.getLogger().log(Level.WARNING, "Could not load menu " + name, e);
+      }
+    }
+    Set<String> names = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    names.addAll(loaded);
+    directories.put(directory, names);
+    return Collections.unmodifiableSet(loaded);
+  }
+
+  /**
+   * Returns the compiled layout of the specified menu.
+   *
+   * @param name menu name
+   * @return layout or null if there's no such menu
+   */
+  @Nullable
+  public MenuLayout get(@NotNull String name) {
+    Definition definition = definitions.get(name);
+    return definition != null ? definition.layout : null;
+  }
+
+  /**
+   * Returns the names of all menus loaded.
+   *
+   * @return menu names
+   */
+  @NotNull
+  public Set<String> getNames() {
+    return Collections.unmodifiableSet(definitions.keySet());
+  }
+
+  /**
+   * Removes the specified menu.
+   *
+   * @param name menu name
+   */
+  public void remove(@NotNull String name) {
+    definitions.remove(name);
+    directories.values().forEach(names -> names.remove(name));
+  }
+
+  /**
+   * Recompiles the definitions whose files have changed since they were last compiled, and picks
+   * up definitions added to or removed from loaded directories. A definition which fails to
+   * recompile keeps its last layout and the failure is logged.
+   *
+   * @return names of the menus recompiled or newly loaded
+   */
+  @NotNull
+  public Set<String> reload() {
+    Set<String> reloaded = new HashSet<>();
+    definitions.forEach(
+        (name, definition) -> {
+          try {
+            if (definition.recompileIfChanged(name)) {
+              reloaded.add(name);
+            }
+          } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not reload menu " + name, e);
+          }
+        });
+    directories.forEach(
+        (directory, names) -> {
+          List<File> files;
+          try {
+            files = listDefinitions(directory);
+          } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not list menus in " + directory, e);
+            return;
+          }
+          Set<String> present = new HashSet<>();
+          for (File file : files) {
+            String name = menuName(file);
+            present.add(name);
+            if (definitions.containsKey(name)) {
+              continue;
+            }
+            try {
+              loadFile(name, file);
+              names.add(name);
+              reloaded.add(name);
+            } catch (IOException | IllegalArgumentException e) {
+              plugin.getLogger().log(Level.WARNING, "Could not load menu " + name, e);
+            }
+          }
+          for (String name : new ArrayList<>(names)) {
+            if (!present.contains(name)) {
+              names.remove(name);
+              definitions.remove(name);
+            }
+          }
+        });
+    return Collections.unmodifiableSet(reloaded);
+  }
+
+  private static List<File> listDefinitions(File directory) throws IOException {
+    File[] files = directory.listFiles((dir, fileName) -> fileName.endsWith(".yml"));
+    if (files == null) {
+      throw new IOException("Not a directory: " + directory);
+    }
+    List<File> definitionFiles = new ArrayList<>();
+    Collections.addAll(definitionFiles, files);
+    return definitionFiles;
+  }
+
+  private static String menuName(File file) {
+    String fileName = file.getName();
+    return fileName.substring(0, fileName.length() - ".yml".length());
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * A compiled definition together with what's needed to tell whether its file has changed: the
+   * file's modification time and length are checked first, and only when those differ the content
+   * checksum is compared.
+   */
+  private static final class Definition {
+
+    private final File file;
+    private volatile MenuLayout layout;
+    private long lastModified;
+    private long length;
+    private long checksum;
+
+    Definition(File file) {
+      this.file = file;
+    }
+
+    void compile(String name, byte[] content) throws IOException {
+      YamlConfiguration config = new YamlConfiguration();
+      try {
+        config.loadFromString(new String(content, StandardCharsets.UTF_8));
+      } catch (InvalidConfigurationException e) {
+        throw new IOException("Invalid menu definition " + name, e);
+      }
+      layout = MenuCompiler.compile(name, config);
+      checksum = checksum(content);
+      if (file != null) {
+        lastModified = file.lastModified();
+        length = content.length;
+      }
+    }
+
+    boolean recompileIfChanged(String name) throws IOException {
+      if (file == null
+          || !file.isFile()
+          || (file.lastModified() == lastModified && file.length() == length)) {
+        return false;
+      }
+      byte[] content = Files.readAllBytes(file.toPath());
+      if (checksum(content) == checksum) {
+        // touched, but the same content
+        lastModified = file.lastModified();
+        length = content.length;
+        return false;
+      }
+      compile(name, content);
+      return true;
+    }
+
+    private static long checksum(byte[] content) {
+      CRC32 crc = new CRC32();
+      crc.update(content, 0, content.length);
+      return crc.getValue();
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package com.mrivanplays.pagedinventory.api;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a compiled menu definition: the resolved contents of every slot, the navigation items
+ * and the slots left free for content. A layout is immutable, so stamping out a page from it never
+ * parses or resolves anything again.
+ *
+ * @see MenuDefinitions
+ */
+public final class MenuLayout {
+
+  private static final int[] NO_SLOTS = new int[0];
+
+  private final String name;
+  private final int size;
+  private final String title;
+  private final ItemStack[] contents;
+  private final int[] contentSlots;
+  private final Map<Integer, NavigationItem> navigationItems;
+  private final Map<String, int[]> itemSlots;
+
+  /**
+   * Creates a new {@link MenuLayout}. Layouts are usually compiled by {@link MenuDefinitions}
+   * rather than created directly.
+   *
+   * @param name menu name
+   * @param size inventory size, a multiple of 9
+   * @param title inventory title or null for the default one
+   * @param contents contents of every slot, items which are not modified afterwards
+   * @param contentSlots slots left free for content
+   * @param navigationItems navigation items by slot
+   * @param itemSlots slots of every named item of the definition
+   */
+  public MenuLayout(
+      @NotNull String name,
+      int size,
+      @Nullable String title,
+      @NotNull ItemStack[] contents,
+      @NotNull int[] contentSlots,
+      @NotNull Map<Integer, NavigationItem> navigationItems,
+      @NotNull Map<String, int[]> itemSlots) {
+    Preconditions.checkNotNull(name, "name");
+    Preconditions.checkArgument(
+        size > 0 && size <= 54 && size % 9 == 0, "size must be a multiple of 9 up to 54");
+    Preconditions.checkArgument(contents.length == size, "contents must match the size");
+    this.name = name;
+    this.size = size;
+    this.title = title;
+    this.contents = contents.clone();
+    this.contentSlots = contentSlots.clone();
+    this.navigationItems = ImmutableMap.copyOf(navigationItems);
+    ImmutableMap.Builder<String, int[]> slots = ImmutableMap.builder();
+    itemSlots.forEach((item, itemSlotsOf) -> slots.put(item, itemSlotsOf.clone()));
+    this.itemSlots = slots.build();
+  }
+
+  /**
+   * Returns the name of the menu.
+   *
+   * @return name
+   */
+  @NotNull
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the size of the menu inventories.
+   *
+   * @return size
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the title of the menu inventories.
+   *
+   * @return title or null if the default one is used
+   */
+  @Nullable
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns a copy of the contents of every slot, navigation items included.
+   *
+   * @return contents
+   */
+  @NotNull
+  public ItemStack[] getContents() {
+    // the items are shared with every page stamped out, so they're copied too
+    ItemStack[] copy = new ItemStack[contents.length];
+    for (int slot = 0; slot < contents.length; slot++) {
+      copy[slot] = contents[slot] != null ? contents[slot].clone() : null;
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the slots left free for content, which items get paginated over through {@link
+   * #toPageLayout()}.
+   *
+   * @return content slots
+   */
+  @NotNull
+  public int[] getContentSlots() {
+    return contentSlots.clone();
+  }
+
+  /**
+   * Returns a copy of the navigation items of the menu by slot.
+   *
+   * @return navigation items
+   */
+  @NotNull
+  public Map<Integer, NavigationItem> getNavigationItems() {
+    Map<Integer, NavigationItem> copy = new HashMap<>(navigationItems.size());
+    navigationItems.forEach(
+        (slot, item) ->
+            copy.put(slot, NavigationItem.create(item.getItem().clone(), item.getAction())));
+    return copy;
+  }
+
+  /**
+   * Returns the slots the specified item of the definition was placed in.
+   *
+   * @param item item name
+   * @return slots, empty if there's no such item
+   */
+  @NotNull
+  public int[] getSlots(@NotNull String item) {
+    int[] slots = itemSlots.get(item);
+    return slots != null ? slots.clone() : NO_SLOTS;
+  }
+
+  /**
+   * Converts this layout into a {@link PageLayout} to paginate content items over: the content
+   * slots of the menu hold the content, its navigation slots are reserved, and every other slot
+   * keeps its item.
+   *
+   * @return page layout
+   * @throws IllegalArgumentException if the menu has no content slots
+   * @see PagedInventoryBuilder#items(java.util.List, MenuLayout)
+   */
+  @NotNull
+  public PageLayout toPageLayout() {
+    PageLayout.Builder builder =
+        PageLayout.builder(size)
+            .title(title)
+            .contentSlots(contentSlots)
+            .reservedSlots(navigationItems.keySet().stream().mapToInt(Integer::intValue).toArray());
+    for (int slot = 0; slot < contents.length; slot++) {
+      if (contents[slot] != null && !navigationItems.containsKey(slot)) {
+        // the page layout hands its items out, so they mustn't be the shared ones
+        builder.item(slot, contents[slot].clone());
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Stamps out a new page out of this layout.
+   *
+   * @return page
+   */
+  @NotNull
+  public Page createPage() {
+    Inventory inventory =
+        title != null
+            ? Bukkit.createInventory(null, size, title)
+            : Bukkit.createInventory(null, size);
+    inventory.setContents(contents);
+    return Page.create(inventory, title);
+  }
+}
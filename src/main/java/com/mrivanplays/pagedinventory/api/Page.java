@@ -4,41 +4,34 @@ import com.google.common.base.Preconditions;
 import java.util.UUID;
 import org.bukkit.inventory.Inventory;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /** Represents a page */
 public interface Page {
 
   /**
-   * Creates a new page instance
+   * Creates a new page instance. Bukkit inventories don't expose their title, so the title of the
+   * page is unknown: use {@link #create(Inventory, String)} for pages which need to be recreated,
+   * e.g. to show personal items.
    *
    * @param inventory inventory page
    * @return page object
    */
   static Page create(@NotNull Inventory inventory) {
     Preconditions.checkNotNull(inventory, "inventory");
-    return new Page() {
-
-      private UUID uuid;
-
-      private void initializeUUID() {
-        uuid = UUID.randomUUID();
-      }
-
-      @Override
-      @NotNull
-      public Inventory getInventory() {
-        return inventory;
-      }
-
-      @Override
-      @NotNull
-      public UUID getPageUUID() {
-        if (uuid == null) {
-          initializeUUID();
-        }
-        return uuid;
-      }
-    };
+    return new InventoryPage(inventory, null, false);
+  }
+
+  /**
+   * Creates a new page instance, remembering the title its inventory was created with
+   *
+   * @param inventory inventory page
+   * @param title title of the inventory, or null if created with the default one
+   * @return page object
+   */
+  static Page create(@NotNull Inventory inventory, @Nullable String title) {
+    Preconditions.checkNotNull(inventory, "inventory");
+    return new InventoryPage(inventory, title, true);
   }
 
   /**
@@ -49,6 +42,27 @@ public interface Page {
   @NotNull
   Inventory getInventory();
 
+  /**
+   * Returns the title the page inventory was created with. Bukkit inventories don't expose their
+   * title, so it's needed to create a copy of the page, e.g. for a personalized view of it.
+   *
+   * @return title, or null if the inventory has the default title
+   */
+  @Nullable
+  default String getTitle() {
+    return null;
+  }
+
+  /**
+   * Returns whether the title the page inventory was created with is known, i.e. whether {@link
+   * #getTitle()} can be relied on to create a copy of the page.
+   *
+   * @return whether the title is known
+   */
+  default boolean isTitleKnown() {
+    return false;
+  }
+
   /**
    * Returns the {@link UUID UniqueId} of the {@link Page} in case you want to store it.
    *
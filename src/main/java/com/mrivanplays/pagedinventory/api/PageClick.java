@@ -12,7 +12,7 @@ import org.jetbrains.annotations.Nullable;
 /**
  * Represents a object, created when {@link org.bukkit.event.inventory.InventoryClickEvent} was
  * fired. You can make use of click events in paged inventories by using {@link
- * PagedInventory#addOnClickFunction(java.util.function.Consumer)}
+ * PagedInventory#addOnClickFunction(java.util.function.Consumer)} or one of its routed variants
  */
 public final class PageClick {
 
@@ -0,0 +1,254 @@
+package com.mrivanplays.pagedinventory.api;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.BitSet;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the layout of the pages of an item collection, paginated automatically by a {@link
+ * PagedInventory}: which slots hold content items, which are reserved for {@link NavigationItem
+ * NavigationItems}, and what fills up the rest.
+ *
+ * @see PagedInventoryBuilder#items(java.util.List, PageLayout)
+ * @see MenuLayout#toPageLayout()
+ */
+public final class PageLayout {
+
+  private final int size;
+  private final String title;
+  private final int[] contentSlots;
+  private final int[] reservedSlots;
+  private final ItemStack filler;
+  private final ItemStack[] items;
+
+  /**
+   * Creates a new builder of a {@link PageLayout} for inventories of the specified size.
+   *
+   * @param size inventory size, a multiple of 9
+   * @return builder
+   */
+  @NotNull
+  public static Builder builder(int size) {
+    Preconditions.checkArgument(
+        size > 0 && size <= 54 && size % 9 == 0, "size must be a multiple of 9 up to 54");
+    return new Builder(size);
+  }
+
+  private PageLayout(
+      int size,
+      String title,
+      int[] contentSlots,
+      int[] reservedSlots,
+      ItemStack filler,
+      ItemStack[] items) {
+    this.size = size;
+    this.title = title;
+    this.contentSlots = contentSlots;
+    this.reservedSlots = reservedSlots;
+    this.filler = filler;
+    this.items = items;
+  }
+
+  /**
+   * Returns the size of the page inventories.
+   *
+   * @return size
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the title of the page inventories.
+   *
+   * @return title or null if the default one is used
+   */
+  @Nullable
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the slots, in order, which content items are placed on.
+   *
+   * @return content slots
+   */
+  @NotNull
+  public int[] getContentSlots() {
+    return contentSlots.clone();
+  }
+
+  /**
+   * Returns the slots reserved for navigation items, which are left empty.
+   *
+   * @return reserved slots
+   */
+  @NotNull
+  public int[] getReservedSlots() {
+    return reservedSlots.clone();
+  }
+
+  /**
+   * Returns the item put on every slot which is neither a content slot nor a reserved one, unless
+   * the slot has an item of its own.
+   *
+   * @return filler or null
+   */
+  @Nullable
+  public ItemStack getFiller() {
+    return filler;
+  }
+
+  /**
+   * Returns the item put on the specified slot in place of the filler.
+   *
+   * @param slot slot
+   * @return item or null if the slot has none of its own
+   */
+  @Nullable
+  public ItemStack getItem(int slot) {
+    return slot >= 0 && slot < items.length ? items[slot] : null;
+  }
+
+  /**
+   * Returns how many content items fit on a single page.
+   *
+   * @return items per page
+   */
+  public int getItemsPerPage() {
+    return contentSlots.length;
+  }
+
+  /** Represents a builder of {@link PageLayout} */
+  public static final class Builder {
+
+    private final int size;
+    private String title;
+    private int[] contentSlots;
+    private int[] reservedSlots = new int[0];
+    private ItemStack filler;
+    private final ItemStack[] items;
+
+    private Builder(int size) {
+      this.size = size;
+      this.items = new ItemStack[size];
+    }
+
+    /**
+     * Sets the title of the page inventories.
+     *
+     * @param title title
+     * @return this instance for chaining
+     */
+    @NotNull
+    public Builder title(@Nullable String title) {
+      this.title = title;
+      return this;
+    }
+
+    /**
+     * Sets the slots content items get placed on, in order, each slot at most once. Defaults to
+     * every slot which isn't reserved.
+     *
+     * @param slots content slots
+     * @return this instance for chaining
+     */
+    @NotNull
+    public Builder contentSlots(@NotNull int... slots) {
+      Preconditions.checkNotNull(slots, "slots");
+      int[] checked = checkSlots(slots);
+      BitSet seen = new BitSet(size);
+      for (int slot : checked) {
+        Preconditions.checkArgument(!seen.get(slot), "slot %s is given twice", slot);
+        seen.set(slot);
+      }
+      this.contentSlots = checked;
+      return this;
+    }
+
+    /**
+     * Reserves the specified slots for navigation items.
+     *
+     * @param slots reserved slots
+     * @return this instance for chaining
+     */
+    @NotNull
+    public Builder reservedSlots(@NotNull int... slots) {
+      Preconditions.checkNotNull(slots, "slots");
+      this.reservedSlots = checkSlots(slots);
+      return this;
+    }
+
+    /**
+     * Sets the item put on every slot which is neither a content slot nor a reserved one, unless
+     * the slot has an item of its own.
+     *
+     * @param filler filler item
+     * @return this instance for chaining
+     */
+    @NotNull
+    public Builder filler(@Nullable ItemStack filler) {
+      this.filler = filler;
+      return this;
+    }
+
+    /**
+     * Puts the specified item on a single slot in place of the filler. The slot can't be a content
+     * slot nor a reserved one.
+     *
+     * @param slot slot
+     * @param item item, or null to put the filler there again
+     * @return this instance for chaining
+     */
+    @NotNull
+    public Builder item(int slot, @Nullable ItemStack item) {
+      Preconditions.checkArgument(slot >= 0 && slot < size, "slot %s out of range", slot);
+      items[slot] = item;
+      return this;
+    }
+
+    /**
+     * Builds into a {@link PageLayout}
+     *
+     * @return page layout
+     */
+    @NotNull
+    public PageLayout build() {
+      BitSet reserved = new BitSet(size);
+      for (int slot : reservedSlots) {
+        reserved.set(slot);
+      }
+      int[] content = contentSlots;
+      if (content == null) {
+        content = new int[size - reserved.cardinality()];
+        for (int slot = reserved.nextClearBit(0), i = 0;
+            slot < size;
+            slot = reserved.nextClearBit(slot + 1)) {
+          content[i++] = slot;
+        }
+      } else {
+        for (int slot : content) {
+          Preconditions.checkArgument(!reserved.get(slot), "slot %s is reserved", slot);
+        }
+      }
+      Preconditions.checkArgument(content.length > 0, "no content slots");
+      for (int slot : content) {
+        Preconditions.checkArgument(items[slot] == null, "slot %s is a content slot", slot);
+      }
+      for (int slot : reservedSlots) {
+        Preconditions.checkArgument(items[slot] == null, "slot %s is reserved", slot);
+      }
+      return new PageLayout(size, title, content, reservedSlots, filler, items.clone());
+    }
+
+    private int[] checkSlots(int[] slots) {
+      for (int slot : slots) {
+        Preconditions.checkArgument(slot >= 0 && slot < size, "slot %s out of range", slot);
+      }
+      return Arrays.copyOf(slots, slots.length);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.mrivanplays.pagedinventory.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a provider of {@link Page Pages}, building them only once somebody opens them. Pages
+ * built are cached by the {@link PagedInventory} and dropped again once they're no longer viewed.
+ *
+ * @see PagedInventoryBuilder#pageProvider(PageProvider)
+ */
+public interface PageProvider {
+
+  /**
+   * Returns the amount of pages this provider can build. Pages are numbered from 1 up to that
+   * amount.
+   *
+   * @return page count
+   */
+  int getPageCount();
+
+  /**
+   * Builds the specified page. This is called on the server thread.
+   *
+   * @param page the number of the page to build
+   * @return page
+   */
+  @NotNull
+  Page createPage(int page);
+
+  /**
+   * Builds the specified page asynchronously. This is only used when asynchronous page loading is
+   * enabled on the {@link PagedInventoryBuilder}. By default {@link #createPage(int)} is called on
+   * the specified executor; override this if the page contents come from a source which is
+   * asynchronous already. The {@link PagedInventory} applies the page on the server thread.
+   *
+   * @param page the number of the page to build
+   * @param executor the executor of the paged inventory
+   * @return future of the page
+   */
+  @NotNull
+  default CompletableFuture<Page> createPageAsync(int page, @NotNull Executor executor) {
+    return CompletableFuture.supplyAsync(() -> createPage(page), executor);
+  }
+}
@@ -1,15 +1,31 @@
 package com.mrivanplays.pagedinventory.api;
 
+import com.google.common.base.Preconditions;
+import com.mrivanplays.pagedinventory.internal.ItemInterner;
+import com.mrivanplays.pagedinventory.internal.PagedInventoryImpl;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 
-/** Represents a paged inventory */
+/**
+ * Represents a paged inventory
+ *
+ * <p>Pages, navigation items and click functions can be changed from any thread. Changes are
+ * published as whole new snapshots, so events being handled at the same time see either the state
+ * before the change or after it. Click and close functions are always called on the server thread.
+ */
 public interface PagedInventory {
 
   /**
@@ -23,6 +39,37 @@ public interface PagedInventory {
     return PagedInventoryBuilder.createBuilder(plugin);
   }
 
+  /**
+   * Reports how well the items held by every paged inventory got deduplicated. Navigation items,
+   * layout fillers, personal items and items paginated from an iterator or a stream are interned,
+   * so the library holds a single instance of identical items. Page inventories still hold a copy
+   * of every item they show, as Bukkit copies items put into an inventory.
+   *
+   * @return footprint report
+   */
+  @NotNull
+  static ItemFootprint getItemFootprint() {
+    return ItemInterner.footprint();
+  }
+
+  /**
+   * Sets how long per tick paged inventories may spend opening pages to many viewers at once,
+   * handing over pages built in the background and refreshing viewed pages. Work left over is
+   * carried to the next tick, clicks first.
+   *
+   * <p>This is a library wide setting: the budget is shared by every paged inventory of every
+   * plugin, so it's meant to be set by the server owner's plugin rather than per menu. Defaults to
+   * 5 milliseconds.
+   *
+   * @param time budget per tick
+   * @param unit unit of the time
+   */
+  static void setWorkBudget(long time, @NotNull TimeUnit unit) {
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkArgument(time > 0, "time must be positive");
+    PagedInventoryImpl.setWorkBudget(unit.toNanos(time));
+  }
+
   /**
    * Adds a click listener, when a {@link Page} got clicked.
    *
@@ -30,6 +77,46 @@ public interface PagedInventory {
    */
   void addOnClickFunction(@NotNull Consumer<PageClick> onClick);
 
+  /**
+   * Adds a click listener, called only when the specified slot of the specified {@link Page} got
+   * clicked.
+   *
+   * @param page page number
+   * @param slot slot of the page inventory
+   * @param onClick on click function
+   */
+  void addOnClickFunction(int page, int slot, @NotNull Consumer<PageClick> onClick);
+
+  /**
+   * Adds a click listener, called only when a slot within the specified range got clicked, on any
+   * {@link Page}.
+   *
+   * @param fromSlot first slot of the range
+   * @param toSlot last slot of the range, inclusive
+   * @param onClick on click function
+   */
+  void addOnSlotClickFunction(int fromSlot, int toSlot, @NotNull Consumer<PageClick> onClick);
+
+  /**
+   * Adds a click listener, called only when an item tagged with the specified item key got clicked.
+   *
+   * @param itemKey item key
+   * @param onClick on click function
+   * @see #tagItem(ItemStack, String)
+   */
+  void addOnItemClickFunction(@NotNull String itemKey, @NotNull Consumer<PageClick> onClick);
+
+  /**
+   * Returns a copy of the specified item, tagged with the specified item key.
+   *
+   * @param item item to tag
+   * @param itemKey item key
+   * @return tagged copy of the item
+   * @see #addOnItemClickFunction(String, Consumer)
+   */
+  @NotNull
+  ItemStack tagItem(@NotNull ItemStack item, @NotNull String itemKey);
+
   /**
    * Adds a close listener, when a {@link Page} got closed.
    *
@@ -97,7 +184,8 @@ public interface PagedInventory {
   void removePage(int page);
 
   /**
-   * Returns a immutable map of the {@link Page Pages} this {@link PagedInventory} has
+   * Returns a immutable map of the {@link Page Pages} this {@link PagedInventory} has. Pages of a
+   * {@link PageProvider} are only present while they're built.
    *
    * @return pages
    */
@@ -113,6 +201,17 @@ public interface PagedInventory {
    */
   void setNavigationItem(int pos, @NotNull NavigationItem item);
 
+  /**
+   * Sets the specified {@link NavigationItem} on the specified {@link
+   * org.bukkit.inventory.Inventory} position of the specified page only. It takes precedence over a
+   * navigation item set on the same position for all pages.
+   *
+   * @param page the page number you want the item on
+   * @param pos the inventory position you want the item on
+   * @param item the navigation item you want to set
+   */
+  void setNavigationItem(int page, int pos, @NotNull NavigationItem item);
+
   /**
    * Removes the specified {@link NavigationItem} on that position.
    *
@@ -121,7 +220,16 @@ public interface PagedInventory {
   void removeNavigationItem(int pos);
 
   /**
-   * Returns a immutable map of the {@link NavigationItem NavigationItems} added.
+   * Removes the {@link NavigationItem} set on that position of the specified page only.
+   *
+   * @param page the page number the navigation item is set on
+   * @param pos the position of the navigation item you want to remove
+   * @see #setNavigationItem(int, int, NavigationItem)
+   */
+  void removeNavigationItem(int page, int pos);
+
+  /**
+   * Returns a immutable map of the {@link NavigationItem NavigationItems} added for all pages.
    *
    * @return navigation items
    */
@@ -136,6 +244,16 @@ public interface PagedInventory {
    */
   void open(@NotNull Player viewer, int page);
 
+  /**
+   * Opens the specified page to every specified {@link Player}. The opens are spread across ticks
+   * within the tick budget, so opening a page to many players at once doesn't stall the server.
+   *
+   * @param viewers viewers
+   * @param page page
+   * @see #setWorkBudget(long, TimeUnit)
+   */
+  void open(@NotNull Collection<? extends Player> viewers, int page);
+
   /**
    * Opens the previous page of the page viewed by the player if present
    *
@@ -159,6 +277,95 @@ public interface PagedInventory {
   @NotNull
   Optional<Page> getPageViewed(@NotNull Player viewer);
 
+  /**
+   * Updates the contents of the specified page in place. Only the slots whose item differs from the
+   * new one are written, so players viewing the page get sent the changed slots alone rather than
+   * the whole window. Navigation item slots are left untouched, as are the slots past the end of
+   * the specified contents. If called off the server thread, the update is applied on it later.
+   *
+   * <p>Pages of a {@link PageProvider} are only updated while built.
+   *
+   * @param page page number
+   * @param contents new contents, with null standing for an empty slot
+   * @throws IllegalArgumentException if the contents don't fit into the page
+   */
+  void updatePage(int page, @NotNull ItemStack[] contents);
+
+  /**
+   * Binds the specified slot of the specified page to an item which gets re-evaluated every
+   * period. The item is only re-evaluated while the page is being viewed, and the slot is only
+   * written when the item changed. Setting a dynamic item on a slot which already has one replaces
+   * it.
+   *
+   * @param page page number
+   * @param slot slot of the page inventory
+   * @param item supplier of the item, called on the server thread
+   * @param period period of re-evaluation, at least one tick
+   * @param unit unit of the period
+   */
+  void setDynamicItem(
+      int page, int slot, @NotNull Supplier<ItemStack> item, long period, @NotNull TimeUnit unit);
+
+  /**
+   * Removes the dynamic item bound to the specified slot of the specified page, if any. The item
+   * last written stays in the slot.
+   *
+   * @param page page number
+   * @param slot slot of the page inventory
+   */
+  void removeDynamicItem(int page, int slot);
+
+  /**
+   * Shows the specified item in the specified slot of the specified page to the specified viewer
+   * only. The viewer gets a view of their own assembled when opening the page: the shared page with
+   * their personal items laid over it. Only the personal items are stored per viewer, and they're
+   * kept until removed, even while the viewer isn't viewing the page.
+   *
+   * <p>Navigation item slots always show the navigation item. Personal items aren't supported by
+   * paged inventories built with a {@link CursorPageProvider}, whose pages are already per viewer,
+   * nor shown on pages whose title isn't known (see {@link Page#isTitleKnown()}), as their copy
+   * would lose the title.
+   *
+   * @param viewer viewer uuid
+   * @param page page number
+   * @param slot slot of the page inventory
+   * @param item item
+   */
+  void setPersonalItem(@NotNull UUID viewer, int page, int slot, @NotNull ItemStack item);
+
+  /**
+   * Removes the personal item of the specified viewer from the specified slot of the specified
+   * page, making the slot show the shared item again.
+   *
+   * @param viewer viewer uuid
+   * @param page page number
+   * @param slot slot of the page inventory
+   * @see #setPersonalItem(UUID, int, int, ItemStack)
+   */
+  void removePersonalItem(@NotNull UUID viewer, int page, int slot);
+
+  /**
+   * Removes every personal item of the specified viewer.
+   *
+   * @param viewer viewer uuid
+   * @see #setPersonalItem(UUID, int, int, ItemStack)
+   */
+  void clearPersonalItems(@NotNull UUID viewer);
+
+  /**
+   * Saves the pages of this {@link PagedInventory} into a versioned binary snapshot file. The
+   * snapshot holds the contents, inventory kind, title, whether the title is known (see {@link
+   * Page#isTitleKnown()}) and {@link UUID} of every page, and the navigation items. Every page of a
+   * {@link PageProvider} which isn't built gets built to be saved, without being cached, so its
+   * source has to be finite. Hibernating pages are saved without being woken up. The file is
+   * replaced once the snapshot is complete. Should be called on the server thread.
+   *
+   * @param file file to save to
+   * @throws IOException if the snapshot can't be written
+   * @see PagedInventoryBuilder#snapshot(Path)
+   */
+  void saveSnapshot(@NotNull Path file) throws IOException;
+
   /**
    * Returns a immutable map of the known viewers and the viewed pages, key being a {@link Player}'s
    * {@link UUID}, and value being a {@link Page}'s {@link UUID}
@@ -168,6 +375,25 @@ public interface PagedInventory {
   @NotNull
   Map<UUID, UUID> getViewers();
 
+  /**
+   * Returns how many navigation item clicks didn't switch the page on their own, because they were
+   * folded into a page switch requested in the same tick or during the navigation cooldown.
+   *
+   * @return suppressed navigation clicks
+   * @see PagedInventoryBuilder#navigationCooldown(long, java.util.concurrent.TimeUnit)
+   */
+  long getSuppressedNavigationCount();
+
+  /**
+   * Returns an immutable set of the {@link UUID}s of the {@link Player}s viewing the specified
+   * page. The lookup costs as much as the page has viewers, however many other viewers there are.
+   *
+   * @param page page number
+   * @return viewers of the page
+   */
+  @NotNull
+  Set<UUID> getViewers(int page);
+
   /**
    * Returns the {@link UUID UniqueId} of this {@link PagedInventory}, in case you want to store it
    * somewhere
@@ -176,4 +402,20 @@ public interface PagedInventory {
    */
   @NotNull
   UUID getPagedInventoryUUID();
+
+  /**
+   * Disposes this {@link PagedInventory}. Every viewer currently viewing a {@link Page} gets its
+   * inventory closed, and the pages, navigation items, viewers and click/close functions are
+   * dropped. A disposed {@link PagedInventory} can't be opened anymore. Calling this more than once
+   * has no effect.
+   */
+  void dispose();
+
+  /**
+   * Returns whether this {@link PagedInventory} has been disposed.
+   *
+   * @return <code>true</code> if disposed, <code>false</code> otherwise
+   * @see #dispose()
+   */
+  boolean isDisposed();
 }
@@ -1,13 +1,22 @@
 package com.mrivanplays.pagedinventory.api;
 
 import com.google.common.base.Preconditions;
-import com.mrivanplays.pagedinventory.internal.PIEventsListener;
+import com.mrivanplays.pagedinventory.internal.ItemPageProvider;
 import com.mrivanplays.pagedinventory.internal.PagedInventoryImpl;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import org.bukkit.Bukkit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /** Represents a builder of {@link PagedInventory} */
 public class PagedInventoryBuilder {
@@ -29,7 +38,7 @@ public class PagedInventoryBuilder {
 
   private PagedInventoryBuilder(Plugin plugin) {
     this.plugin = plugin;
-    this.parent = new PagedInventoryImpl();
+    this.parent = new PagedInventoryImpl(plugin);
   }
 
   /**
@@ -45,6 +54,22 @@ public class PagedInventoryBuilder {
     return this;
   }
 
+  /**
+   * Sets the page number to the specified page, remembering the title its inventory was created
+   * with. Pages need a known title to show personal items or to hibernate.
+   *
+   * @param page page number
+   * @param inventory page
+   * @param title title of the inventory, or null if created with the default one
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder page(
+      int page, @NotNull Inventory inventory, @Nullable String title) {
+    parent.setPage(page, Page.create(inventory, title));
+    return this;
+  }
+
   /**
    * Sets the page number to the specified page
    *
@@ -58,6 +83,216 @@ public class PagedInventoryBuilder {
     return this;
   }
 
+  /**
+   * Sets the page number to a page stamped out of the specified {@link MenuLayout}
+   *
+   * @param pageNum page number
+   * @param layout menu layout
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder page(int pageNum, @NotNull MenuLayout layout) {
+    parent.setPage(pageNum, layout.createPage());
+    return this;
+  }
+
+  /**
+   * Sets the navigation items of the specified {@link MenuLayout} to their slots
+   *
+   * @param layout menu layout
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder menu(@NotNull MenuLayout layout) {
+    layout.getNavigationItems().forEach(parent::setNavigationItem);
+    return this;
+  }
+
+  /**
+   * Sets the {@link PageProvider} which builds the pages of the {@link PagedInventory} when they
+   * get opened. Pages set explicitly through {@link #page(int, Page)} take precedence over the ones
+   * of the provider.
+   *
+   * @param provider page provider
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder pageProvider(@NotNull PageProvider provider) {
+    Preconditions.checkNotNull(provider, "provider");
+    parent.setPageProvider(provider);
+    return this;
+  }
+
+  /**
+   * Makes the {@link PagedInventory} paginate through the specified {@link CursorPageProvider}
+   * instead of numbered pages. Every viewer fetches its own pages, starting from page 1, and
+   * {@link NavigationItem.Action#NEXT_PAGE}/{@link NavigationItem.Action#PREVIOUS_PAGE} move along
+   * the cursors. Only page 1 can be opened directly.
+   *
+   * @param provider cursor page provider
+   * @param historySize how many pages back a viewer can go
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder cursorPageProvider(
+      @NotNull CursorPageProvider<?> provider, int historySize) {
+    Preconditions.checkNotNull(provider, "provider");
+    Preconditions.checkArgument(historySize >= 0, "historySize cannot be negative");
+    parent.setCursorPageProvider(provider, historySize);
+    return this;
+  }
+
+  /**
+   * Paginates the specified items over the specified {@link PageLayout}. Pages are only built when
+   * they get opened, reading the items of that page straight from the list, which is not copied.
+   * This sets the {@link PageProvider} of the {@link PagedInventory}.
+   *
+   * @param items content items
+   * @param layout page layout
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder items(@NotNull List<ItemStack> items, @NotNull PageLayout layout) {
+    Preconditions.checkNotNull(items, "items");
+    Preconditions.checkNotNull(layout, "layout");
+    return pageProvider(new ItemPageProvider(items, layout));
+  }
+
+  /**
+   * Paginates the specified items over the content slots of the specified {@link MenuLayout}, and
+   * sets the menu's navigation items. Pages are only built when they get opened, reading the items
+   * of that page straight from the list, which is not copied. This sets the {@link PageProvider} of
+   * the {@link PagedInventory}.
+   *
+   * @param items content items
+   * @param layout menu layout
+   * @return this instance for chaining
+   * @throws IllegalArgumentException if the menu has no content slots
+   * @see MenuLayout#toPageLayout()
+   */
+  @NotNull
+  public PagedInventoryBuilder items(@NotNull List<ItemStack> items, @NotNull MenuLayout layout) {
+    Preconditions.checkNotNull(layout, "layout");
+    items(items, layout.toPageLayout());
+    return menu(layout);
+  }
+
+  /**
+   * Paginates the specified items over the specified {@link PageLayout}. Pages are only built when
+   * they get opened, and the iterator is only consumed as far as the furthest page built. This sets
+   * the {@link PageProvider} of the {@link PagedInventory}.
+   *
+   * @param items content items
+   * @param layout page layout
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder items(
+      @NotNull Iterator<? extends ItemStack> items, @NotNull PageLayout layout) {
+    Preconditions.checkNotNull(items, "items");
+    Preconditions.checkNotNull(layout, "layout");
+    return pageProvider(new ItemPageProvider(items, layout));
+  }
+
+  /**
+   * Paginates the specified items over the specified {@link PageLayout}. Pages are only built when
+   * they get opened, and the stream is only consumed as far as the furthest page built. This sets
+   * the {@link PageProvider} of the {@link PagedInventory}.
+   *
+   * @param items content items
+   * @param layout page layout
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder items(
+      @NotNull Stream<? extends ItemStack> items, @NotNull PageLayout layout) {
+    Preconditions.checkNotNull(items, "items");
+    return items(items.iterator(), layout);
+  }
+
+  /**
+   * Makes the pages of the {@link PageProvider} get built asynchronously through {@link
+   * PageProvider#createPageAsync(int, Executor)}, on the scheduler's asynchronous workers. Opening
+   * a page which isn't built yet doesn't block the server thread; the page is opened once built,
+   * unless the viewer has moved to another page meanwhile.
+   *
+   * @param loadingInventory inventory to show while the page is being built, or null to keep
+   *     showing whatever the viewer is viewing
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder asyncPageLoading(@Nullable Inventory loadingInventory) {
+    return asyncPageLoading(
+        task -> plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task),
+        loadingInventory);
+  }
+
+  /**
+   * Makes the pages of the {@link PageProvider} get built asynchronously through {@link
+   * PageProvider#createPageAsync(int, Executor)}, on the specified executor. Opening a page which
+   * isn't built yet doesn't block the server thread; the page is opened once built, unless the
+   * viewer has moved to another page meanwhile.
+   *
+   * @param executor executor to build pages on
+   * @param loadingInventory inventory to show while the page is being built, or null to keep
+   *     showing whatever the viewer is viewing
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder asyncPageLoading(
+      @NotNull Executor executor, @Nullable Inventory loadingInventory) {
+    Preconditions.checkNotNull(executor, "executor");
+    parent.setAsyncLoading(executor, loadingInventory);
+    return this;
+  }
+
+  /**
+   * Makes the pages within the specified distance of a viewed page get built in the background,
+   * so flipping to them doesn't wait for them to be built. Prefetched pages nobody gets near are
+   * dropped once their viewer closes the inventory, and prefetching pauses while the server ticks
+   * slower than 55 milliseconds on average. Only has an effect with asynchronous page loading.
+   *
+   * @param depth how many pages to prefetch in each direction
+   * @return this instance for chaining
+   * @see #asyncPageLoading(Executor, Inventory)
+   */
+  @NotNull
+  public PagedInventoryBuilder prefetch(int depth) {
+    Preconditions.checkArgument(depth >= 0, "depth cannot be negative");
+    parent.setPrefetchDepth(depth);
+    return this;
+  }
+
+  /**
+   * Sets how many pages built by the {@link PageProvider} are kept at most. Least recently used
+   * pages which aren't viewed by anybody get dropped first. Defaults to 16.
+   *
+   * @param size maximum amount of built pages kept
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder pageCacheSize(int size) {
+    Preconditions.checkArgument(size > 0, "size must be positive");
+    parent.setPageCacheSize(size);
+    return this;
+  }
+
+  /**
+   * Makes pages built by the {@link PageProvider} get dropped once nobody has accessed them for the
+   * specified time. Pages being viewed are never dropped.
+   *
+   * @param time time since last access
+   * @param unit unit of the time
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder pageCacheExpiry(long time, @NotNull TimeUnit unit) {
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkArgument(time > 0, "time must be positive");
+    parent.setPageCacheExpiry(unit.toMillis(time));
+    return this;
+  }
+
   /**
    * Sets the specified inventory slot to the specified {@link NavigationItem}
    *
@@ -71,6 +306,52 @@ public class PagedInventoryBuilder {
     return this;
   }
 
+  /**
+   * Binds the specified slot of the specified page to an item which gets re-evaluated every period,
+   * while the page is being viewed.
+   *
+   * @param page page number
+   * @param slot slot of the page inventory
+   * @param item supplier of the item
+   * @param period period of re-evaluation
+   * @param unit unit of the period
+   * @return this instance for chaining
+   * @see PagedInventory#setDynamicItem(int, int, Supplier, long, TimeUnit)
+   */
+  @NotNull
+  public PagedInventoryBuilder dynamicItem(
+      int page, int slot, @NotNull Supplier<ItemStack> item, long period, @NotNull TimeUnit unit) {
+    parent.setDynamicItem(page, slot, item, period, unit);
+    return this;
+  }
+
+  /**
+   * Hides {@link NavigationItem.Action#PREVIOUS_PAGE} navigation items on pages which don't have a
+   * previous page, and {@link NavigationItem.Action#NEXT_PAGE} ones on pages which don't have a
+   * next page.
+   *
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder hideUnavailableNavigation() {
+    parent.setHideUnavailableNavigation(true);
+    return this;
+  }
+
+  /**
+   * Makes the navigation items carry a tag in their {@link
+   * org.bukkit.persistence.PersistentDataContainer}. A navigation action then only fires if the
+   * clicked item carries that tag, on top of being on the navigation item's slot. Navigation items
+   * set before are tagged too.
+   *
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder navigationTagCheck() {
+    parent.setNavigationTagCheck(true);
+    return this;
+  }
+
   /**
    * Adds a click function to listen for click events on the inventories.
    *
@@ -83,6 +364,52 @@ public class PagedInventoryBuilder {
     return this;
   }
 
+  /**
+   * Adds a click function to listen for click events on the specified slot of the specified page.
+   *
+   * @param page page number
+   * @param slot slot
+   * @param clickListener click listener
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder clickFunction(
+      int page, int slot, @NotNull Consumer<PageClick> clickListener) {
+    parent.addOnClickFunction(page, slot, clickListener);
+    return this;
+  }
+
+  /**
+   * Adds a click function to listen for click events on a slot within the specified range, on every
+   * page.
+   *
+   * @param fromSlot first slot of the range
+   * @param toSlot last slot of the range, inclusive
+   * @param clickListener click listener
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder slotClickFunction(
+      int fromSlot, int toSlot, @NotNull Consumer<PageClick> clickListener) {
+    parent.addOnSlotClickFunction(fromSlot, toSlot, clickListener);
+    return this;
+  }
+
+  /**
+   * Adds a click function to listen for click events on items tagged with the specified item key.
+   *
+   * @param itemKey item key
+   * @param clickListener click listener
+   * @return this instance for chaining
+   * @see PagedInventory#tagItem(ItemStack, String)
+   */
+  @NotNull
+  public PagedInventoryBuilder itemClickFunction(
+      @NotNull String itemKey, @NotNull Consumer<PageClick> clickListener) {
+    parent.addOnItemClickFunction(itemKey, clickListener);
+    return this;
+  }
+
   /**
    * Adds a close function to listen for close events on the inventories.
    *
@@ -95,6 +422,139 @@ public class PagedInventoryBuilder {
     return this;
   }
 
+  /**
+   * Makes the built {@link PagedInventory} dispose itself once its last viewer closes it.
+   *
+   * @return this instance for chaining
+   * @see PagedInventory#dispose()
+   */
+  @NotNull
+  public PagedInventoryBuilder disposeWhenEmpty() {
+    parent.setDisposeWhenEmpty(true);
+    return this;
+  }
+
+  /**
+   * Makes the built {@link PagedInventory} reuse inventories instead of creating a new one every
+   * time. This covers the pages built from items over a {@link PageLayout} and the views assembled
+   * for viewers with personal items. Inventories are cleared and kept for reuse once nothing shows
+   * them anymore, for example when a page is evicted from the page cache or a viewer closes their
+   * view.
+   *
+   * <p>A pooled inventory gets reused after release, so pages of a {@link PageProvider} must not be
+   * kept after they're evicted. Leased inventories which get garbage collected without having been
+   * released are reported in the log.
+   *
+   * @param maxIdlePerKind how many blank inventories of the same size and title are kept at most
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder poolInventories(int maxIdlePerKind) {
+    Preconditions.checkArgument(maxIdlePerKind > 0, "maxIdlePerKind must be positive");
+    parent.setInventoryPooling(maxIdlePerKind);
+    return this;
+  }
+
+  /**
+   * Makes the pages of the built {@link PagedInventory} hibernate once nobody has viewed them for
+   * the specified time. A hibernating page keeps its contents as compressed bytes on the heap and
+   * lets its inventory go. It wakes up into a new inventory as soon as it's opened or its inventory
+   * is asked for. Its {@link Page#getPageUUID() uuid} and page number stay the same.
+   *
+   * <p>Hibernation covers the pages set on the paged inventory whose {@link Page#isTitleKnown()
+   * title is known}, e.g. set through {@link #page(int, Inventory, String)}, as the new inventory
+   * has to be created with the same title. Pages of a {@link PageProvider} are dropped by the page
+   * cache instead. Pages obtained from the paged inventory stay valid across hibernation; the
+   * {@link Page} instances it was given don't.
+   *
+   * @param time idle time before hibernating
+   * @param unit unit of the time
+   * @return this instance for chaining
+   */
+  @NotNull
+  public PagedInventoryBuilder hibernateIdlePages(long time, @NotNull TimeUnit unit) {
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkArgument(time > 0, "time must be positive");
+    parent.setHibernation(unit.toMillis(time), null);
+    return this;
+  }
+
+  /**
+   * Makes the pages of the built {@link PagedInventory} hibernate once nobody has viewed them for
+   * the specified time, keeping their contents in a file rather than on the heap. The space of
+   * pages which woke up is reused. The file is overwritten, and deleted once the paged inventory is
+   * disposed. If it can't be opened, pages hibernate on the heap.
+   *
+   * @param time idle time before hibernating
+   * @param unit unit of the time
+   * @param file file to keep the contents of hibernating pages in
+   * @return this instance for chaining
+   * @see #hibernateIdlePages(long, TimeUnit)
+   */
+  @NotNull
+  public PagedInventoryBuilder hibernateIdlePages(
+      long time, @NotNull TimeUnit unit, @NotNull Path file) {
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkNotNull(file, "file");
+    Preconditions.checkArgument(time > 0, "time must be positive");
+    parent.setHibernation(unit.toMillis(time), file);
+    return this;
+  }
+
+  /**
+   * Sets the pages and navigation items saved in the specified snapshot file. Only the navigation
+   * items and the page index are read right away; the contents of a page are read from the file
+   * when the page is first opened, so loading a large snapshot costs little. The pages keep the
+   * {@link Page#getPageUUID() uuids} they were saved with. The file is kept open until the built
+   * {@link PagedInventory} is disposed.
+   *
+   * @param file snapshot file
+   * @return this instance for chaining
+   * @throws IOException if the file can't be read or isn't a supported snapshot
+   * @see PagedInventory#saveSnapshot(Path)
+   */
+  @NotNull
+  public PagedInventoryBuilder snapshot(@NotNull Path file) throws IOException {
+    Preconditions.checkNotNull(file, "file");
+    parent.loadSnapshot(file);
+    return this;
+  }
+
+  /**
+   * Sets the minimum time between two page switches of a viewer triggered by navigation items.
+   * Navigation clicks made meanwhile are folded into the next switch, which happens as soon as the
+   * cooldown is over. Without a cooldown, clicks are still folded into at most one switch per tick.
+   *
+   * @param time cooldown
+   * @param unit unit of the time
+   * @return this instance for chaining
+   * @see PagedInventory#getSuppressedNavigationCount()
+   */
+  @NotNull
+  public PagedInventoryBuilder navigationCooldown(long time, @NotNull TimeUnit unit) {
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkArgument(time >= 0, "time cannot be negative");
+    parent.setNavigationCooldown(unit.toMillis(time));
+    return this;
+  }
+
+  /**
+   * Makes the built {@link PagedInventory} dispose itself once the specified time has passed since
+   * it got built.
+   *
+   * @param time time to live
+   * @param unit unit of the time
+   * @return this instance for chaining
+   * @see PagedInventory#dispose()
+   */
+  @NotNull
+  public PagedInventoryBuilder disposeAfter(long time, @NotNull TimeUnit unit) {
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkArgument(time > 0, "time must be positive");
+    parent.setExpiry(Math.max(1, unit.toMillis(time) / 50));
+    return this;
+  }
+
   /**
    * Builds into a {@link PagedInventory}
    *
@@ -102,7 +562,7 @@ public class PagedInventoryBuilder {
    */
   @NotNull
   public PagedInventory build() {
-    Bukkit.getPluginManager().registerEvents(new PIEventsListener(parent, plugin), plugin);
+    parent.start();
     return parent;
   }
 }
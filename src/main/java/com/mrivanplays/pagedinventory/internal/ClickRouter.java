@@ -0,0 +1,146 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.PageClick;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+/**
+ * The dispatch table of click functions. Besides the functions called on every click, functions can
+ * be bound to a slot of every page, to a slot of a single page, or to an item key, and a click only
+ * calls the functions bound to what was clicked.
+ */
+final class ClickRouter {
+
+  private static final Handlers<?>[] NO_SLOTS = new Handlers<?>[0];
+
+  private final Handlers<PageClick> global;
+  private final Map<Integer, Handlers<?>[]> pageSlots;
+  private final Map<String, Handlers<PageClick>> itemKeys;
+  private final NamespacedKey itemKey;
+  private volatile Handlers<?>[] slots;
+
+  ClickRouter(NamespacedKey itemKey) {
+    this.global = new Handlers<>();
+    this.pageSlots = new ConcurrentHashMap<>();
+    this.itemKeys = new ConcurrentHashMap<>();
+    this.itemKey = itemKey;
+    this.slots = NO_SLOTS;
+  }
+
+  void add(Consumer<PageClick> handler) {
+    global.add(handler);
+  }
+
+  synchronized void addRange(int fromSlot, int toSlot, Consumer<PageClick> handler) {
+    slots = with(slots, fromSlot, toSlot, handler);
+  }
+
+  synchronized void add(int page, int slot, Consumer<PageClick> handler) {
+    pageSlots.put(page, with(pageSlots.getOrDefault(page, NO_SLOTS), slot, slot, handler));
+  }
+
+  void add(String key, Consumer<PageClick> handler) {
+    itemKeys.computeIfAbsent(key, k -> new Handlers<>()).add(handler);
+  }
+
+  synchronized void clear() {
+    global.clear();
+    slots = NO_SLOTS;
+    pageSlots.clear();
+    itemKeys.clear();
+  }
+
+  /**
+   * Tags a copy of the specified item with the specified item key.
+   *
+   * @param item item
+   * @param key item key
+   * @return tagged copy
+   */
+  ItemStack tag(ItemStack item, String key) {
+    ItemStack tagged = item.clone();
+    ItemMeta meta = tagged.getItemMeta();
+    if (meta != null) {
+      meta.getPersistentDataContainer().set(itemKey, PersistentDataType.STRING, key);
+      tagged.setItemMeta(meta);
+    }
+    return tagged;
+  }
+
+  /**
+   * Returns whether any function is bound to a click on the specified slot.
+   *
+   * @param page page number
+   * @param slot slot of the top inventory, or -1 if the player's inventory was clicked
+   * @return whether the click should be routed
+   */
+  boolean hasHandlers(Integer page, int slot) {
+    if (!global.isEmpty()) {
+      return true;
+    }
+    if (slot < 0) {
+      return false;
+    }
+    return get(slots, slot) != null
+        || !itemKeys.isEmpty()
+        || (!pageSlots.isEmpty() && get(pageSlots.get(page), slot) != null);
+  }
+
+  /**
+   * Calls the functions bound to the specified click.
+   *
+   * @param page page number
+   * @param slot slot of the top inventory, or -1 if the player's inventory was clicked
+   * @param click click
+   */
+  void route(Integer page, int slot, PageClick click) {
+    global.call(click);
+    if (slot < 0) {
+      return;
+    }
+    call(get(slots, slot), click);
+    if (!pageSlots.isEmpty()) {
+      call(get(pageSlots.get(page), slot), click);
+    }
+    if (!itemKeys.isEmpty()) {
+      ItemStack clicked = click.getClickedItem();
+      if (clicked != null && clicked.hasItemMeta()) {
+        ItemMeta meta = clicked.getItemMeta();
+        String key = meta.getPersistentDataContainer().get(itemKey, PersistentDataType.STRING);
+        if (key != null) {
+          call(itemKeys.get(key), click);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void call(Handlers<?> handlers, PageClick click) {
+    if (handlers != null) {
+      ((Handlers<PageClick>) handlers).call(click);
+    }
+  }
+
+  private static Handlers<?> get(Handlers<?>[] slots, int slot) {
+    return slots != null && slot < slots.length ? slots[slot] : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Handlers<?>[] with(
+      Handlers<?>[] current, int fromSlot, int toSlot, Consumer<PageClick> handler) {
+    Handlers<?>[] updated = Arrays.copyOf(current, Math.max(current.length, toSlot + 1));
+    for (int slot = fromSlot; slot <= toSlot; slot++) {
+      if (updated[slot] == null) {
+        updated[slot] = new Handlers<PageClick>();
+      }
+      ((Handlers<PageClick>) updated[slot]).add(handler);
+    }
+    return updated;
+  }
+}
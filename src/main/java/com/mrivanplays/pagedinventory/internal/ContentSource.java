@@ -0,0 +1,26 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.io.IOException;
+
+/** Holds the encoded contents of pages which are asleep, to be read back once they wake up. */
+interface ContentSource {
+
+  /**
+   * Loads the data stored under the specified handle.
+   *
+   * @param handle handle
+   * @return data
+   * @throws IOException if the data can't be read
+   */
+  byte[] load(Object handle) throws IOException;
+
+  /**
+   * Frees the data stored under the specified handle, which isn't needed anymore.
+   *
+   * @param handle handle
+   */
+  void free(Object handle);
+
+  /** Frees everything stored. */
+  void close();
+}
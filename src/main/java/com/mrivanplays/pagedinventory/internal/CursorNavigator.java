@@ -0,0 +1,148 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.CursorPage;
+import com.mrivanplays.pagedinventory.api.CursorPageProvider;
+import com.mrivanplays.pagedinventory.api.Page;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.logging.Level;
+import org.bukkit.entity.Player;
+
+/**
+ * Navigates viewers through the pages of a {@link CursorPageProvider}. Every viewer has its own
+ * session holding the page it views, the cursor of the next page and a bounded history of the
+ * cursors of the pages before, so nothing but the viewed page is ever materialized.
+ */
+final class CursorNavigator {
+
+  /** Stands for the null cursor of the first page, as a deque can't hold nulls. */
+  private static final Object FIRST_PAGE = new Object();
+
+  private final PagedInventoryImpl impl;
+  private final CursorPageProvider<Object> provider;
+  private final int historySize;
+  private final Map<UUID, Session> sessions;
+
+  @SuppressWarnings("unchecked")
+  CursorNavigator(PagedInventoryImpl impl, CursorPageProvider<?> provider, int historySize) {
+    this.impl = impl;
+    this.provider = (CursorPageProvider<Object>) provider;
+    this.historySize = historySize;
+    this.sessions = new ConcurrentHashMap<>();
+  }
+
+  void openFirst(Player viewer) {
+    Session session = new Session();
+    forget(sessions.put(viewer.getUniqueId(), session));
+    fetch(viewer, session, FIRST_PAGE, 1, true);
+  }
+
+  void openNext(Player viewer) {
+    Session session = sessions.get(viewer.getUniqueId());
+    if (session != null && session.page != null && session.nextCursor != null) {
+      fetch(viewer, session, session.nextCursor, session.position + 1, true);
+    }
+  }
+
+  void openPrevious(Player viewer) {
+    Session session = sessions.get(viewer.getUniqueId());
+    if (session != null && session.page != null && !session.history.isEmpty()) {
+      fetch(viewer, session, session.history.peekLast(), session.position - 1, false);
+    }
+  }
+
+  Page pageOf(UUID viewer) {
+    Session session = sessions.get(viewer);
+    return session != null ? session.page : null;
+  }
+
+  void remove(UUID viewer) {
+    forget(sessions.remove(viewer));
+  }
+
+  void clear() {
+    sessions.clear();
+  }
+
+  /** Writes the navigation bar into the page of every session again. */
+  void applyNavigation() {
+    for (Session session : sessions.values()) {
+      if (session.page != null) {
+        impl.applyNavigation(session.position, session.page, session.available());
+      }
+    }
+  }
+
+  private void fetch(Player viewer, Session session, Object cursor, int position, boolean forward) {
+    int request = ++session.request;
+    UUID viewerId = viewer.getUniqueId();
+    impl.fetchCursorPage(provider, cursor == FIRST_PAGE ? null : cursor)
+        .whenComplete(
+            (fetched, error) -> {
+              if (session.request != request || sessions.get(viewerId) != session) {
+                // the viewer has navigated again or left meanwhile
+                return;
+              }
+              if (error != null) {
+                impl.getPlugin()
+                    .getLogger()
+                    .log(Level.WARNING, "Could not fetch page " + position, error);
+                return;
+              }
+              apply(session, cursor, position, forward, fetched);
+              impl.openCursorPage(viewer, position, session.page, session.available());
+            });
+  }
+
+  private void apply(
+      Session session, Object cursor, int position, boolean forward, CursorPage<Object> fetched) {
+    if (session.page != null) {
+      if (forward) {
+        session.history.addLast(session.cursor);
+        if (session.history.size() > historySize) {
+          session.history.removeFirst();
+        }
+      } else {
+        session.history.pollLast();
+      }
+    }
+    Page previous = session.page;
+    session.cursor = cursor;
+    session.position = position;
+    session.page = fetched.getPage();
+    session.nextCursor = fetched.getNextCursor();
+    if (previous != null && previous != session.page) {
+      impl.forgetNavigation(previous);
+    }
+  }
+
+  /** Every fetch is a new page, so the navigation state of the left one is never needed again. */
+  private void forget(Session session) {
+    if (session != null && session.page != null) {
+      impl.forgetNavigation(session.page);
+    }
+  }
+
+  private static final class Session {
+
+    private final Deque<Object> history = new ArrayDeque<>();
+    private Object cursor;
+    private Object nextCursor;
+    private int position;
+    private Page page;
+    private int request;
+
+    private IntPredicate available() {
+      int current = position;
+      boolean hasPrevious = !history.isEmpty();
+      boolean hasNext = nextCursor != null;
+      return page ->
+          page == current
+              || (page == current - 1 ? hasPrevious : page == current + 1 && hasNext);
+    }
+  }
+}
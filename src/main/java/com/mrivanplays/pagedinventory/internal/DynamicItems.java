@@ -0,0 +1,127 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Holds the dynamic items of a paged inventory per page, as copy-on-write arrays. An item is
+ * re-evaluated only when the {@link WorkQueue} asks for the page it sits on, which happens
+ * only while the page is being viewed.
+ */
+final class DynamicItems {
+
+  private static final Entry[] NONE = new Entry[0];
+
+  private final Map<Integer, Entry[]> pages = new ConcurrentHashMap<>();
+
+  synchronized void set(int page, int slot, Supplier<ItemStack> supplier, long periodTicks) {
+    Entry[] current = pages.getOrDefault(page, NONE);
+    Entry entry = new Entry(slot, supplier, periodTicks);
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].slot == slot) {
+        Entry[] replaced = current.clone();
+        replaced[i] = entry;
+        pages.put(page, replaced);
+        return;
+      }
+    }
+    Entry[] added = Arrays.copyOf(current, current.length + 1);
+    added[current.length] = entry;
+    pages.put(page, added);
+  }
+
+  synchronized boolean remove(int page, int slot) {
+    Entry[] current = pages.getOrDefault(page, NONE);
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].slot != slot) {
+        continue;
+      }
+      if (current.length == 1) {
+        pages.remove(page);
+      } else {
+        Entry[] removed = new Entry[current.length - 1];
+        System.arraycopy(current, 0, removed, 0, i);
+        System.arraycopy(current, i + 1, removed, i, current.length - i - 1);
+        pages.put(page, removed);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  boolean isEmpty() {
+    return pages.isEmpty();
+  }
+
+  synchronized void clear() {
+    pages.clear();
+  }
+
+  /**
+   * Returns whether any item of the specified page is due for re-evaluation at the specified tick.
+   *
+   * @param page page number
+   * @param tick current tick
+   * @return whether {@link #refresh(Integer, Inventory, long, IntPredicate)} has anything to do
+   */
+  boolean isDue(Integer page, long tick) {
+    for (Entry entry : pages.getOrDefault(page, NONE)) {
+      if (entry.nextTick <= tick) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Re-evaluates the items of the specified page which are due, writing only the slots whose item
+   * changed.
+   *
+   * @param page page number
+   * @param inventory inventory of the page
+   * @param tick current tick
+   * @param locked slots which must not be written, as the navigation items own them
+   */
+  void refresh(Integer page, Inventory inventory, long tick, IntPredicate locked) {
+    for (Entry entry : pages.getOrDefault(page, NONE)) {
+      if (entry.nextTick <= tick
+          && entry.slot < inventory.getSize()
+          && !locked.test(entry.slot)) {
+        PagedInventoryImpl.updateSlot(inventory, entry.slot, entry.supplier.get());
+      }
+    }
+  }
+
+  /**
+   * Schedules the next re-evaluation of the items of the specified page which were due.
+   *
+   * @param page page number
+   * @param tick current tick
+   */
+  void advance(Integer page, long tick) {
+    for (Entry entry : pages.getOrDefault(page, NONE)) {
+      if (entry.nextTick <= tick) {
+        entry.nextTick = tick + entry.periodTicks;
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    private final int slot;
+    private final Supplier<ItemStack> supplier;
+    private final long periodTicks;
+    private long nextTick;
+
+    private Entry(int slot, Supplier<ItemStack> supplier, long periodTicks) {
+      this.slot = slot;
+      this.supplier = supplier;
+      this.periodTicks = periodTicks;
+    }
+  }
+}
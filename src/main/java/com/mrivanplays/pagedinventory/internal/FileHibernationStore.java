@@ -0,0 +1,138 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the encoded contents of hibernating pages in a local file, off the heap. The regions freed
+ * by pages waking up are kept in a free list, merged with their free neighbours and reused by the
+ * next pages stored; free space at the end of the file is truncated away. The file is deleted when
+ * the store is closed.
+ */
+final class FileHibernationStore implements HibernationStore {
+
+  private final Path file;
+  private final FileChannel channel;
+  // free regions by offset, never adjacent to each other nor to the end of the file
+  private final TreeMap<Long, Long> freeRegions = new TreeMap<>();
+  private long end;
+
+  FileHibernationStore(Path file) throws IOException {
+    this.file = file;
+    this.channel =
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  @Override
+  public synchronized Object store(byte[] data) throws IOException {
+    Region region = new Region(allocate(data.length), data.length);
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    long position = region.offset;
+    try {
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+    } catch (IOException e) {
+      free(region);
+      throw e;
+    }
+    return region;
+  }
+
+  private long allocate(int length) {
+    // first fit
+    Iterator<Map.Entry<Long, Long>> iterator = freeRegions.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Long, Long> free = iterator.next();
+      if (free.getValue() < length) {
+        continue;
+      }
+      long offset = free.getKey();
+      long remaining = free.getValue() - length;
+      iterator.remove();
+      if (remaining > 0) {
+        freeRegions.put(offset + length, remaining);
+      }
+      return offset;
+    }
+    long offset = end;
+    end += length;
+    return offset;
+  }
+
+  @Override
+  public synchronized byte[] load(Object handle) throws IOException {
+    Region region = (Region) handle;
+    ByteBuffer buffer = ByteBuffer.allocate(region.length);
+    long position = region.offset;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException("Hibernation file is truncated");
+      }
+      position += read;
+    }
+    return buffer.array();
+  }
+
+  @Override
+  public synchronized void free(Object handle) {
+    Region region = (Region) handle;
+    long offset = region.offset;
+    long length = region.length;
+    Long after = freeRegions.remove(offset + length);
+    if (after != null) {
+      length += after;
+    }
+    Map.Entry<Long, Long> before = freeRegions.floorEntry(offset);
+    if (before != null && before.getKey() + before.getValue() == offset) {
+      freeRegions.remove(before.getKey());
+      offset = before.getKey();
+      length += before.getValue();
+    }
+    if (offset + length < end) {
+      freeRegions.put(offset, length);
+      return;
+    }
+    end = offset;
+    try {
+      channel.truncate(end);
+    } catch (IOException e) {
+      // the space past the end is overwritten by the next pages stored anyway
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    freeRegions.clear();
+    try {
+      channel.close();
+      Files.deleteIfExists(file);
+    } catch (IOException ignored) {
+    }
+  }
+
+  private static final class Region {
+
+    private final long offset;
+    private final int length;
+
+    private Region(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
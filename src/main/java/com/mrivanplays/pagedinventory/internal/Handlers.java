@@ -0,0 +1,44 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A set of event handlers backed by an array, which is replaced on every change. Calling the
+ * handlers iterates the current array without locking or allocating.
+ *
+ * @param <E> event type
+ */
+final class Handlers<E> {
+
+  private static final Consumer<?>[] EMPTY = new Consumer<?>[0];
+
+  private volatile Consumer<?>[] handlers = EMPTY;
+
+  synchronized void add(Consumer<E> handler) {
+    Consumer<?>[] current = handlers;
+    for (Consumer<?> present : current) {
+      if (present.equals(handler)) {
+        return;
+      }
+    }
+    Consumer<?>[] added = Arrays.copyOf(current, current.length + 1);
+    added[current.length] = handler;
+    handlers = added;
+  }
+
+  synchronized void clear() {
+    handlers = EMPTY;
+  }
+
+  boolean isEmpty() {
+    return handlers.length == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  void call(E event) {
+    for (Consumer<?> handler : handlers) {
+      ((Consumer<E>) handler).accept(event);
+    }
+  }
+}
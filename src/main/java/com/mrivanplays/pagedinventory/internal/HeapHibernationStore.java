@@ -0,0 +1,21 @@
+package com.mrivanplays.pagedinventory.internal;
+
+/** Keeps the encoded contents of hibernating pages on the heap. */
+final class HeapHibernationStore implements HibernationStore {
+
+  @Override
+  public Object store(byte[] data) {
+    return data;
+  }
+
+  @Override
+  public byte[] load(Object handle) {
+    return (byte[]) handle;
+  }
+
+  @Override
+  public void free(Object handle) {}
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,199 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.Page;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.UUID;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A page which can hibernate while nobody views it: its contents get encoded into a {@link
+ * HibernationStore} and its inventory is let go. The first call to {@link #getInventory()} after
+ * that wakes the page up into a new inventory. The page keeps the {@link UUID} of the page it
+ * wraps.
+ *
+ * <p>A page created asleep reads its contents from a {@link ContentSource} which may be read only,
+ * such as a snapshot, and can't hibernate again.
+ */
+final class HibernatingPage implements Page {
+
+  private final UUID uuid;
+  private final String title;
+  private final boolean titleKnown;
+  private final InventoryHolder holder;
+  private final InventoryType type;
+  private final int size;
+  private final HibernationStore store;
+  private ContentSource source;
+  private Inventory inventory;
+  private Object stored;
+  private volatile long awakeSince;
+
+  HibernatingPage(Page page, HibernationStore store) {
+    this.uuid = page.getPageUUID();
+    this.title = page.getTitle();
+    this.titleKnown = page.isTitleKnown();
+    this.inventory = page.getInventory();
+    this.holder = inventory.getHolder();
+    this.type = inventory.getType();
+    this.size = inventory.getSize();
+    this.store = store;
+    this.source = store;
+  }
+
+  /**
+   * Creates a page which is asleep already, its contents stored under the specified handle.
+   *
+   * @param uuid page uuid
+   * @param title title, or null for the default one
+   * @param titleKnown whether the title is known, see {@link Page#isTitleKnown()}
+   * @param type inventory type
+   * @param size inventory size
+   * @param source source holding the contents
+   * @param stored handle of the contents
+   */
+  HibernatingPage(
+      UUID uuid,
+      String title,
+      boolean titleKnown,
+      InventoryType type,
+      int size,
+      ContentSource source,
+      Object stored) {
+    this.uuid = uuid;
+    this.title = title;
+    this.titleKnown = titleKnown;
+    this.holder = null;
+    this.type = type;
+    this.size = size;
+    this.store = null;
+    this.source = source;
+    this.stored = stored;
+  }
+
+  /**
+   * Returns whether this page hibernates into the specified store.
+   *
+   * @param store store, not null
+   * @return whether the store is this page's, false for pages which can't hibernate again
+   */
+  boolean hibernatesInto(HibernationStore store) {
+    return this.store == store;
+  }
+
+  /**
+   * Puts this page to sleep, unless it's being viewed. The navigation items are left out of the
+   * stored contents, as they're written again once the page is shown.
+   *
+   * @param navigationSlots slots holding navigation items
+   * @return whether the page hibernates now
+   * @throws IOException if the contents can't be stored
+   */
+  synchronized boolean hibernate(BitSet navigationSlots) throws IOException {
+    if (inventory == null) {
+      return true;
+    }
+    if (store == null || !inventory.getViewers().isEmpty()) {
+      return false;
+    }
+    stored = store.store(ItemCodec.encode(inventory.getContents(), navigationSlots));
+    source = store;
+    inventory = null;
+    return true;
+  }
+
+  synchronized boolean isHibernating() {
+    return inventory == null;
+  }
+
+  /**
+   * Returns the time this page last woke up at.
+   *
+   * @return time in milliseconds, or 0 if it never hibernated
+   */
+  long getAwakeSince() {
+    return awakeSince;
+  }
+
+  /**
+   * Returns the type of this page's inventory, without waking the page up.
+   *
+   * @return type
+   */
+  InventoryType getType() {
+    return type;
+  }
+
+  /**
+   * Returns the contents of this page encoded, without waking the page up: the stored contents,
+   * which hold no navigation items, are copied as they are while the page is asleep.
+   *
+   * @param navigationSlots slots holding navigation items, left out while the page is awake
+   * @return encoded contents
+   * @throws IOException if the stored contents can't be read
+   */
+  synchronized byte[] encodeContents(BitSet navigationSlots) throws IOException {
+    return inventory == null
+        ? source.load(stored)
+        : ItemCodec.encode(inventory.getContents(), navigationSlots);
+  }
+
+  /**
+   * Returns the size of this page's inventory, without waking the page up.
+   *
+   * @return size
+   */
+  int getSize() {
+    return size;
+  }
+
+  /** Frees the stored contents of this page, which got removed. */
+  synchronized void discard() {
+    if (stored != null) {
+      source.free(stored);
+      stored = null;
+    }
+  }
+
+  @Override
+  @NotNull
+  public synchronized Inventory getInventory() {
+    if (inventory == null) {
+      ItemStack[] contents;
+      try {
+        contents = ItemCodec.decode(source.load(stored));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not wake up page " + uuid, e);
+      }
+      source.free(stored);
+      stored = null;
+      inventory = Inventories.create(holder, type, size, title);
+      inventory.setContents(contents);
+      awakeSince = System.currentTimeMillis();
+    }
+    return inventory;
+  }
+
+  @Override
+  @Nullable
+  public String getTitle() {
+    return title;
+  }
+
+  @Override
+  public boolean isTitleKnown() {
+    return titleKnown;
+  }
+
+  @Override
+  @NotNull
+  public UUID getPageUUID() {
+    return uuid;
+  }
+}
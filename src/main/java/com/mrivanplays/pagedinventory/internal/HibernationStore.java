@@ -0,0 +1,16 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.io.IOException;
+
+/** Keeps the encoded contents of hibernating pages. */
+interface HibernationStore extends ContentSource {
+
+  /**
+   * Stores the specified data.
+   *
+   * @param data data
+   * @return handle to load the data back with
+   * @throws IOException if the data can't be stored
+   */
+  Object store(byte[] data) throws IOException;
+}
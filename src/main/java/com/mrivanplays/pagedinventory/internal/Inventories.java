@@ -0,0 +1,32 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+/** Creates inventories alike to existing ones, as Bukkit has no way to copy an inventory. */
+final class Inventories {
+
+  private Inventories() {}
+
+  /**
+   * Creates a blank inventory of the specified kind.
+   *
+   * @param holder holder or null
+   * @param type inventory type
+   * @param size size, used for chest inventories only
+   * @param title title, or null for the default one
+   * @return inventory
+   */
+  static Inventory create(InventoryHolder holder, InventoryType type, int size, String title) {
+    if (type != InventoryType.CHEST) {
+      return title != null
+          ? Bukkit.createInventory(holder, type, title)
+          : Bukkit.createInventory(holder, type);
+    }
+    return title != null
+        ? Bukkit.createInventory(holder, size, title)
+        : Bukkit.createInventory(holder, size);
+  }
+}
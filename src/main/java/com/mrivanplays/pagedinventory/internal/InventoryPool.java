@@ -0,0 +1,181 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.google.common.collect.MapMaker;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * A pool of blank inventories, keyed by their type, size and title. Inventories are leased out
+ * when a page or a personal view is built and come back once nothing shows them anymore, cleared.
+ * Leases are tracked weakly: an inventory which gets garbage collected without having been
+ * released is reported as a leak.
+ */
+final class InventoryPool {
+
+  private final Plugin plugin;
+  private final int maxIdlePerKind;
+  private final Map<Kind, Deque<Inventory>> idle;
+  private final Map<Inventory, Lease> leases;
+  private final ReferenceQueue<Inventory> collected;
+  private long leaked;
+
+  InventoryPool(Plugin plugin, int maxIdlePerKind) {
+    this.plugin = plugin;
+    this.maxIdlePerKind = maxIdlePerKind;
+    this.idle = new HashMap<>();
+    // weak keys are compared by identity
+    this.leases = new MapMaker().weakKeys().makeMap();
+    this.collected = new ReferenceQueue<>();
+  }
+
+  /**
+   * Leases a blank chest inventory of the specified size and title.
+   *
+   * @param size size
+   * @param title title, or null for the default one
+   * @return inventory
+   */
+  Inventory acquire(int size, String title) {
+    return acquire(new Kind(InventoryType.CHEST, size, title));
+  }
+
+  /**
+   * Leases a blank inventory of the same kind as the specified one.
+   *
+   * @param like inventory to match
+   * @param title title of the inventory to match, or null for the default one
+   * @return inventory
+   */
+  Inventory acquireLike(Inventory like, String title) {
+    return acquire(new Kind(like.getType(), like.getSize(), title));
+  }
+
+  private synchronized Inventory acquire(Kind kind) {
+    drainCollected();
+    Deque<Inventory> available = idle.get(kind);
+    Inventory inventory = available != null ? available.pollFirst() : null;
+    if (inventory == null) {
+      inventory = kind.create();
+    }
+    leases.put(inventory, new Lease(inventory, kind, collected));
+    return inventory;
+  }
+
+  /**
+   * Gives the specified inventory back to the pool. Inventories which weren't leased from this pool
+   * are ignored; ones still being viewed are released on the next tick instead.
+   *
+   * @param inventory inventory
+   */
+  void release(Inventory inventory) {
+    if (!inventory.getViewers().isEmpty()) {
+      // the viewer closing the inventory is still among its viewers during the close event
+      plugin.getServer().getScheduler().runTask(plugin, () -> giveBack(inventory));
+      return;
+    }
+    giveBack(inventory);
+  }
+
+  private synchronized void giveBack(Inventory inventory) {
+    drainCollected();
+    Lease lease = leases.remove(inventory);
+    if (lease == null) {
+      return;
+    }
+    // a released lease is no leak, so it must not get enqueued
+    lease.clear();
+    if (!inventory.getViewers().isEmpty()) {
+      // still shown somewhere, so it can't be handed out again
+      return;
+    }
+    Deque<Inventory> available = idle.computeIfAbsent(lease.kind, kind -> new ArrayDeque<>());
+    if (available.size() < maxIdlePerKind) {
+      inventory.clear();
+      available.addFirst(inventory);
+    }
+  }
+
+  synchronized void clear() {
+    idle.clear();
+    for (Lease lease : leases.values()) {
+      lease.clear();
+    }
+    leases.clear();
+  }
+
+  private void drainCollected() {
+    Lease lease;
+    while ((lease = (Lease) collected.poll()) != null) {
+      // reported once every hundred leaks, so a leaking plugin doesn't flood the log
+      if (leaked++ % 100 == 0) {
+        plugin
+            .getLogger()
+            .log(
+                Level.WARNING,
+                leaked
+                    + " pooled inventories, the last one "
+                    + lease.kind
+                    + ", were dropped without being released; pages of a PageProvider shouldn't be"
+                    + " kept after they're evicted");
+      }
+    }
+  }
+
+  private static final class Lease extends WeakReference<Inventory> {
+
+    private final Kind kind;
+
+    private Lease(Inventory inventory, Kind kind, ReferenceQueue<Inventory> queue) {
+      super(inventory, queue);
+      this.kind = kind;
+    }
+  }
+
+  private static final class Kind {
+
+    private final InventoryType type;
+    private final int size;
+    private final String title;
+
+    private Kind(InventoryType type, int size, String title) {
+      this.type = type;
+      this.size = size;
+      this.title = title;
+    }
+
+    private Inventory create() {
+      return Inventories.create(null, type, size, title);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Kind)) {
+        return false;
+      }
+      Kind other = (Kind) o;
+      return type == other.type && size == other.size && Objects.equals(title, other.title);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, size, title);
+    }
+
+    @Override
+    public String toString() {
+      return type + " " + size + (title != null ? " \"" + title + "\"" : "");
+    }
+  }
+}
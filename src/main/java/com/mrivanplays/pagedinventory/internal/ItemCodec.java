@@ -0,0 +1,74 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+/** Encodes inventory contents into compact, gzip compressed bytes and back. */
+final class ItemCodec {
+
+  private ItemCodec() {}
+
+  /**
+   * Encodes the specified contents.
+   *
+   * @param contents contents, with nulls for empty slots
+   * @return encoded contents
+   * @throws IOException if an item can't be serialized
+   */
+  static byte[] encode(ItemStack[] contents) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (BukkitObjectOutputStream out =
+        new BukkitObjectOutputStream(new GZIPOutputStream(bytes))) {
+      out.writeInt(contents.length);
+      for (ItemStack item : contents) {
+        out.writeObject(item);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Encodes the specified contents, with the specified slots encoded as empty.
+   *
+   * @param contents contents, with nulls for empty slots
+   * @param cleared slots left out
+   * @return encoded contents
+   * @throws IOException if an item can't be serialized
+   */
+  static byte[] encode(ItemStack[] contents, BitSet cleared) throws IOException {
+    ItemStack[] kept = contents.clone();
+    for (int slot = cleared.nextSetBit(0);
+        slot >= 0 && slot < kept.length;
+        slot = cleared.nextSetBit(slot + 1)) {
+      kept[slot] = null;
+    }
+    return encode(kept);
+  }
+
+  /**
+   * Decodes contents encoded by {@link #encode(ItemStack[])}.
+   *
+   * @param data encoded contents
+   * @return contents, with nulls for empty slots
+   * @throws IOException if the data is malformed
+   */
+  static ItemStack[] decode(byte[] data) throws IOException {
+    try (BukkitObjectInputStream in =
+        new BukkitObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+      ItemStack[] contents = new ItemStack[in.readInt()];
+      for (int i = 0; i < contents.length; i++) {
+        contents[i] = (ItemStack) in.readObject();
+      }
+      return contents;
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException("Malformed inventory contents", e);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.MapMaker;
+import com.mrivanplays.pagedinventory.api.ItemFootprint;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Interns the {@link ItemStack ItemStacks} held by every paged inventory, so identical items share
+ * a single canonical instance along with its meta. Canonical items are only weakly referenced and
+ * go away once nothing holds them anymore.
+ *
+ * <p>Interned items must never be modified, as they may be shared. Items the library doesn't own
+ * are therefore copied before being interned.
+ */
+public final class ItemInterner {
+
+  private static final Interner<ItemStack> INTERNER = Interners.newWeakInterner();
+  // weak keys are compared by identity, so this tracks the canonical instances alive
+  private static final Set<ItemStack> CANONICAL =
+      Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+  private static final LongAdder INTERNED = new LongAdder();
+  private static final LongAdder DEDUPLICATED = new LongAdder();
+
+  private ItemInterner() {}
+
+  /**
+   * Interns the specified item, which the library owns and won't modify.
+   *
+   * @param item item or null
+   * @return canonical item, or null if the item is null
+   */
+  static ItemStack intern(ItemStack item) {
+    if (item == null) {
+      return null;
+    }
+    INTERNED.increment();
+    ItemStack canonical = INTERNER.intern(item);
+    if (canonical != item) {
+      DEDUPLICATED.increment();
+    } else {
+      CANONICAL.add(canonical);
+    }
+    return canonical;
+  }
+
+  /**
+   * Interns a copy of the specified item, which the library doesn't own. The item itself stays
+   * free to be modified by its owner.
+   *
+   * @param item item or null
+   * @return canonical item, or null if the item is null
+   */
+  static ItemStack internCopy(ItemStack item) {
+    return item != null ? intern(item.clone()) : null;
+  }
+
+  /**
+   * Reports how well items got deduplicated so far.
+   *
+   * @return footprint report
+   */
+  public static ItemFootprint footprint() {
+    return new ItemFootprint(INTERNED.sum(), DEDUPLICATED.sum(), CANONICAL.size());
+  }
+}
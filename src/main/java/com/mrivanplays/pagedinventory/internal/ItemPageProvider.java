@@ -0,0 +1,148 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.Page;
+import com.mrivanplays.pagedinventory.api.PageLayout;
+import com.mrivanplays.pagedinventory.api.PageProvider;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Paginates a collection of content items over a {@link PageLayout}. Pages are computed from the
+ * item offsets when they're built: a list is read in place, while an iterator is only consumed as
+ * far as the furthest page built so far.
+ */
+public final class ItemPageProvider implements PageProvider {
+
+  private final PageLayout layout;
+  private final int[] contentSlots;
+  private final int[] fillerSlots;
+  private final ItemStack[] fillers;
+  private final List<ItemStack> items;
+  private final Iterator<? extends ItemStack> source;
+  private volatile InventoryPool inventoryPool;
+
+  /**
+   * Creates a provider reading its items straight from the specified list, which is not copied.
+   *
+   * @param items items
+   * @param layout layout
+   */
+  public ItemPageProvider(List<ItemStack> items, PageLayout layout) {
+    this.layout = layout;
+    this.contentSlots = layout.getContentSlots();
+    this.fillerSlots = fillerSlots(layout);
+    this.fillers = fillers(layout, fillerSlots);
+    this.items = items;
+    this.source = null;
+  }
+
+  /**
+   * Creates a provider consuming its items lazily from the specified iterator.
+   *
+   * @param source items
+   * @param layout layout
+   */
+  public ItemPageProvider(Iterator<? extends ItemStack> source, PageLayout layout) {
+    this.layout = layout;
+    this.contentSlots = layout.getContentSlots();
+    this.fillerSlots = fillerSlots(layout);
+    this.fillers = fillers(layout, fillerSlots);
+    this.items = new ArrayList<>();
+    this.source = source;
+  }
+
+  void setInventoryPool(InventoryPool inventoryPool) {
+    this.inventoryPool = inventoryPool;
+  }
+
+  @Override
+  public int getPageCount() {
+    if (source == null) {
+      return pagesFor(items.size());
+    }
+    synchronized (items) {
+      if (items.isEmpty()) {
+        // nothing is read before the first page is built, so only the first page is known to exist
+        return 1;
+      }
+      // items are read page by page, so there's one more page as long as the source has more
+      return pagesFor(items.size()) + (source.hasNext() ? 1 : 0);
+    }
+  }
+
+  @Override
+  public Page createPage(int page) {
+    int from = (page - 1) * contentSlots.length;
+    int to = from + contentSlots.length;
+    InventoryPool pool = inventoryPool;
+    Inventory inventory;
+    if (pool != null) {
+      inventory = pool.acquire(layout.getSize(), layout.getTitle());
+    } else {
+      inventory =
+          layout.getTitle() != null
+              ? Bukkit.createInventory(null, layout.getSize(), layout.getTitle())
+              : Bukkit.createInventory(null, layout.getSize());
+    }
+    for (int i = 0; i < fillerSlots.length; i++) {
+      if (fillers[i] != null) {
+        inventory.setItem(fillerSlots[i], fillers[i]);
+      }
+    }
+    if (source == null) {
+      fill(inventory, from, Math.min(to, items.size()));
+    } else {
+      synchronized (items) {
+        while (items.size() < to && source.hasNext()) {
+          // the caller may still hold the items handed over, so a copy of them is interned
+          items.add(ItemInterner.internCopy(source.next()));
+        }
+        fill(inventory, from, Math.min(to, items.size()));
+      }
+    }
+    return Page.create(inventory, layout.getTitle());
+  }
+
+  private void fill(Inventory inventory, int from, int to) {
+    for (int i = from; i < to; i++) {
+      inventory.setItem(contentSlots[i - from], items.get(i));
+    }
+  }
+
+  private static int[] fillerSlots(PageLayout layout) {
+    BitSet used = new BitSet(layout.getSize());
+    for (int slot : layout.getContentSlots()) {
+      used.set(slot);
+    }
+    for (int slot : layout.getReservedSlots()) {
+      used.set(slot);
+    }
+    int[] slots = new int[layout.getSize() - used.cardinality()];
+    for (int slot = used.nextClearBit(0), i = 0;
+        slot < layout.getSize();
+        slot = used.nextClearBit(slot + 1)) {
+      slots[i++] = slot;
+    }
+    return slots;
+  }
+
+  /** Resolves what goes on each filler slot: the slot's own item, or else the filler. */
+  private static ItemStack[] fillers(PageLayout layout, int[] fillerSlots) {
+    ItemStack filler = ItemInterner.internCopy(layout.getFiller());
+    ItemStack[] fillers = new ItemStack[fillerSlots.length];
+    for (int i = 0; i < fillerSlots.length; i++) {
+      ItemStack item = layout.getItem(fillerSlots[i]);
+      fillers[i] = item != null ? ItemInterner.internCopy(item) : filler;
+    }
+    return fillers;
+  }
+
+  private int pagesFor(int itemCount) {
+    return Math.max(1, (itemCount + contentSlots.length - 1) / contentSlots.length);
+  }
+}
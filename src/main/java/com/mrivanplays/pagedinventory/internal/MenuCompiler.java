@@ -0,0 +1,193 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.google.common.base.Preconditions;
+import com.mrivanplays.pagedinventory.api.MenuLayout;
+import com.mrivanplays.pagedinventory.api.NavigationItem;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * Compiles menu definitions into {@link MenuLayout MenuLayouts}. A definition looks like this:
+ *
+ * <pre>
+ * title: "&amp;8Shop"
+ * rows: 6
+ * content-slots: ["10-16", "19-25"]
+ * items:
+ *   border:
+ *     material: GRAY_STAINED_GLASS_PANE
+ *     name: " "
+ *     slots: ["0-8", "45-53"]
+ * navigation:
+ *   previous:
+ *     action: PREVIOUS_PAGE
+ *     material: ARROW
+ *     name: "&amp;7Previous page"
+ *     slot: 45
+ * </pre>
+ *
+ * Instead of a material, an item may also specify a serialized {@code item}.
+ */
+public final class MenuCompiler {
+
+  private MenuCompiler() {}
+
+  /**
+   * Compiles the specified definition.
+   *
+   * @param name menu name
+   * @param definition definition
+   * @return layout
+   * @throws IllegalArgumentException if the definition is invalid
+   */
+  public static MenuLayout compile(String name, ConfigurationSection definition) {
+    int size = size(name, definition);
+    ItemStack[] contents = new ItemStack[size];
+    Map<String, int[]> itemSlots = new HashMap<>();
+    ConfigurationSection items = definition.getConfigurationSection("items");
+    if (items != null) {
+      for (String key : items.getKeys(false)) {
+        String path = name + ": items." + key;
+        ConfigurationSection itemDefinition = section(items, key, path);
+        ItemStack item = ItemInterner.intern(item(itemDefinition, path));
+        int[] slots = slots(itemDefinition.get("slots"), size, path);
+        for (int slot : slots) {
+          contents[slot] = item;
+        }
+        itemSlots.put(key, slots);
+      }
+    }
+
+    Map<Integer, NavigationItem> navigationItems = new HashMap<>();
+    ConfigurationSection navigation = definition.getConfigurationSection("navigation");
+    if (navigation != null) {
+      for (String key : navigation.getKeys(false)) {
+        String path = name + ": navigation." + key;
+        ConfigurationSection navDefinition = section(navigation, key, path);
+        // the navigation item is handed out by the layout, so it must not be the canonical item
+        ItemStack navStack = item(navDefinition, path);
+        NavigationItem navItem = NavigationItem.create(navStack, action(navDefinition, path));
+        ItemStack canonical = ItemInterner.internCopy(navStack);
+        Object slotsValue =
+            navDefinition.contains("slot") ? navDefinition.get("slot") : navDefinition.get("slots");
+        int[] slots = slots(slotsValue, size, path);
+        for (int slot : slots) {
+          contents[slot] = canonical;
+          navigationItems.put(slot, navItem);
+        }
+        itemSlots.put(key, slots);
+      }
+    }
+
+    int[] contentSlots = slots(definition.get("content-slots"), size, name + ": content-slots");
+    for (int slot : contentSlots) {
+      Preconditions.checkArgument(
+          contents[slot] == null, "%s: content slot %s is already taken", name, slot);
+    }
+    return new MenuLayout(
+        name,
+        size,
+        text(definition.getString("title")),
+        contents,
+        contentSlots,
+        navigationItems,
+        itemSlots);
+  }
+
+  private static int size(String name, ConfigurationSection definition) {
+    int size =
+        definition.contains("rows") ? definition.getInt("rows") * 9 : definition.getInt("size", 54);
+    Preconditions.checkArgument(
+        size > 0 && size <= 54 && size % 9 == 0,
+        "%s: size must be a multiple of 9 up to 54, or rows between 1 and 6",
+        name);
+    return size;
+  }
+
+  private static ConfigurationSection section(
+      ConfigurationSection parent, String key, String path) {
+    Preconditions.checkArgument(parent.isConfigurationSection(key), "%s: not a section", path);
+    return parent.getConfigurationSection(key);
+  }
+
+  private static ItemStack item(ConfigurationSection definition, String path) {
+    if (definition.contains("item")) {
+      ItemStack item = definition.getItemStack("item");
+      Preconditions.checkArgument(item != null, "%s: invalid serialized item", path);
+      return item;
+    }
+    String materialName = definition.getString("material");
+    Preconditions.checkArgument(materialName != null, "%s: no material or item", path);
+    Material material = Material.matchMaterial(materialName);
+    Preconditions.checkArgument(material != null, "%s: unknown material %s", path, materialName);
+    int amount = definition.getInt("amount", 1);
+    Preconditions.checkArgument(amount > 0, "%s: amount must be positive", path);
+    ItemStack item = new ItemStack(material, amount);
+    String displayName = definition.getString("name");
+    List<String> lore = definition.getStringList("lore");
+    if (displayName != null || !lore.isEmpty()) {
+      ItemMeta meta = item.getItemMeta();
+      if (meta != null) {
+        if (displayName != null) {
+          meta.setDisplayName(text(displayName));
+        }
+        if (!lore.isEmpty()) {
+          meta.setLore(lore.stream().map(MenuCompiler::text).collect(Collectors.toList()));
+        }
+        item.setItemMeta(meta);
+      }
+    }
+    return item;
+  }
+
+  private static NavigationItem.Action action(ConfigurationSection definition, String path) {
+    String actionName = definition.getString("action");
+    Preconditions.checkArgument(actionName != null, "%s: no action", path);
+    try {
+      return NavigationItem.Action.valueOf(actionName.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(path + ": unknown action " + actionName);
+    }
+  }
+
+  /**
+   * Parses slots given as a single slot or a list of slots, where each slot can also be an
+   * inclusive range such as {@code "0-8"}.
+   */
+  private static int[] slots(Object value, int size, String path) {
+    if (value == null) {
+      return new int[0];
+    }
+    List<?> entries = value instanceof List ? (List<?>) value : Collections.singletonList(value);
+    BitSet slots = new BitSet(size);
+    for (Object entry : entries) {
+      String text = String.valueOf(entry).trim();
+      int dash = text.indexOf('-', 1);
+      int from;
+      int to;
+      try {
+        from = Integer.parseInt(dash < 0 ? text : text.substring(0, dash).trim());
+        to = dash < 0 ? from : Integer.parseInt(text.substring(dash + 1).trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(path + ": invalid slot " + text);
+      }
+      Preconditions.checkArgument(
+          from >= 0 && from <= to && to < size, "%s: slot %s out of range", path, text);
+      slots.set(from, to + 1);
+    }
+    return slots.stream().toArray();
+  }
+
+  private static String text(String text) {
+    return text != null ? ChatColor.translateAlternateColorCodes('&', text) : null;
+  }
+}
@@ -0,0 +1,59 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.NavigationItem;
+import java.util.Arrays;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Holds {@link NavigationItem NavigationItems} indexed by their inventory slot, so resolving the
+ * navigation item of a clicked slot is a single array lookup. Alongside every item the stack which
+ * actually gets shown in the inventory is kept, as it may carry a navigation tag.
+ */
+final class NavigationLayer {
+
+  private volatile NavigationItem[] items = new NavigationItem[0];
+  private volatile ItemStack[] stacks = new ItemStack[0];
+
+  synchronized void set(int slot, NavigationItem item, ItemStack stack) {
+    int length = Math.max(items.length, slot + 1);
+    NavigationItem[] newItems = Arrays.copyOf(items, length);
+    ItemStack[] newStacks = Arrays.copyOf(stacks, length);
+    newItems[slot] = item;
+    newStacks[slot] = stack;
+    stacks = newStacks;
+    items = newItems;
+  }
+
+  synchronized NavigationItem remove(int slot) {
+    NavigationItem[] current = items;
+    if (slot >= current.length || current[slot] == null) {
+      return null;
+    }
+    NavigationItem[] newItems = current.clone();
+    ItemStack[] newStacks = stacks.clone();
+    newItems[slot] = null;
+    newStacks[slot] = null;
+    items = newItems;
+    stacks = newStacks;
+    return current[slot];
+  }
+
+  synchronized void clear() {
+    items = new NavigationItem[0];
+    stacks = new ItemStack[0];
+  }
+
+  int length() {
+    return items.length;
+  }
+
+  NavigationItem get(int slot) {
+    NavigationItem[] current = items;
+    return slot >= 0 && slot < current.length ? current[slot] : null;
+  }
+
+  ItemStack getStack(int slot) {
+    ItemStack[] current = stacks;
+    return slot >= 0 && slot < current.length ? current[slot] : null;
+  }
+}
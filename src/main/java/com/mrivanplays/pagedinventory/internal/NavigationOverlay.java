@@ -0,0 +1,276 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.NavigationItem;
+import com.mrivanplays.pagedinventory.api.Page;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+/**
+ * The navigation bar of a paged inventory, kept apart from the page inventories. Changing a
+ * navigation item only bumps a version; the bar gets written into a page's inventory when that page
+ * is shown, and only if the page hasn't been stamped with the current version yet.
+ */
+final class NavigationOverlay {
+
+  private final NavigationLayer global;
+  private final Map<Integer, NavigationLayer> pageLayers;
+  private final Map<UUID, Applied> applied;
+  private final IntPredicate pageExists;
+  private final AtomicInteger version;
+  private volatile boolean hideUnavailable;
+  private volatile NamespacedKey tagKey;
+
+  NavigationOverlay(IntPredicate pageExists) {
+    this.global = new NavigationLayer();
+    this.pageLayers = new ConcurrentHashMap<>();
+    this.applied = new ConcurrentHashMap<>();
+    this.pageExists = pageExists;
+    this.version = new AtomicInteger();
+  }
+
+  synchronized void setTagKey(NamespacedKey tagKey) {
+    this.tagKey = tagKey;
+    // the items set before have to carry the tag too, or they'd stop navigating
+    retag(global);
+    pageLayers.values().forEach(this::retag);
+    invalidate();
+  }
+
+  private void retag(NavigationLayer layer) {
+    for (int slot = 0; slot < layer.length(); slot++) {
+      NavigationItem item = layer.get(slot);
+      if (item != null) {
+        layer.set(slot, item, stack(item));
+      }
+    }
+  }
+
+  void setHideUnavailable(boolean hideUnavailable) {
+    this.hideUnavailable = hideUnavailable;
+    invalidate();
+  }
+
+  boolean isHidingUnavailable() {
+    return hideUnavailable;
+  }
+
+  synchronized void set(int slot, NavigationItem item) {
+    global.set(slot, item, stack(item));
+    invalidate();
+  }
+
+  synchronized void set(int page, int slot, NavigationItem item) {
+    pageLayers.computeIfAbsent(page, k -> new NavigationLayer()).set(slot, item, stack(item));
+    invalidate();
+  }
+
+  NavigationItem remove(int slot) {
+    NavigationItem removed = global.remove(slot);
+    invalidate();
+    return removed;
+  }
+
+  NavigationItem remove(int page, int slot) {
+    NavigationLayer layer = pageLayers.get(page);
+    NavigationItem removed = layer != null ? layer.remove(slot) : null;
+    invalidate();
+    return removed;
+  }
+
+  /**
+   * Returns the navigation items set on single pages.
+   *
+   * @return navigation items by page and slot
+   */
+  Map<Integer, Map<Integer, NavigationItem>> pageItems() {
+    Map<Integer, Map<Integer, NavigationItem>> items = new HashMap<>();
+    for (Map.Entry<Integer, NavigationLayer> entry : pageLayers.entrySet()) {
+      NavigationLayer layer = entry.getValue();
+      for (int slot = 0; slot < layer.length(); slot++) {
+        NavigationItem item = layer.get(slot);
+        if (item != null) {
+          items.computeIfAbsent(entry.getKey(), page -> new HashMap<>()).put(slot, item);
+        }
+      }
+    }
+    return items;
+  }
+
+  /** Marks every page as needing its navigation bar to be written again. */
+  void invalidate() {
+    version.incrementAndGet();
+  }
+
+  void forget(UUID page) {
+    applied.remove(page);
+  }
+
+  void clear() {
+    global.clear();
+    pageLayers.clear();
+    applied.clear();
+    invalidate();
+  }
+
+  /**
+   * Resolves the navigation item shown on the specified slot of the specified page.
+   *
+   * @param page page number
+   * @param slot slot
+   * @return navigation item or null
+   */
+  NavigationItem resolve(int page, int slot) {
+    NavigationLayer layer = layerFor(page, slot, pageExists);
+    return layer != null ? layer.get(slot) : null;
+  }
+
+  /**
+   * Returns the slots of the specified page which hold navigation items: the ones the bar was last
+   * written into, and the ones the bar would be written into now. Contents saved without those
+   * slots carry no stale navigation items.
+   *
+   * @param pageNum page number
+   * @param page page uuid
+   * @return navigation slots
+   */
+  BitSet slots(int pageNum, UUID page) {
+    Applied previous = applied.get(page);
+    BitSet slots = previous != null ? (BitSet) previous.slots.clone() : new BitSet();
+    NavigationLayer pageLayer = pageLayers.get(pageNum);
+    int length = Math.max(global.length(), pageLayer != null ? pageLayer.length() : 0);
+    for (int slot = 0; slot < length; slot++) {
+      if (layerFor(pageNum, slot, pageExists) != null) {
+        slots.set(slot);
+      }
+    }
+    return slots;
+  }
+
+  /**
+   * Returns whether the specified clicked item carries the navigation tag. Always true if
+   * navigation tags aren't checked.
+   *
+   * @param clickedItem the item clicked
+   * @return whether the item is tagged
+   */
+  boolean isTagged(ItemStack clickedItem) {
+    NamespacedKey key = tagKey;
+    if (key == null) {
+      return true;
+    }
+    if (clickedItem == null || !clickedItem.hasItemMeta()) {
+      return false;
+    }
+    ItemMeta meta = clickedItem.getItemMeta();
+    return meta.getPersistentDataContainer().has(key, PersistentDataType.BYTE);
+  }
+
+  /**
+   * Writes the navigation bar into the specified page's inventory, unless it is already up to date.
+   *
+   * @param pageNum page number
+   * @param page page
+   */
+  void apply(int pageNum, Page page) {
+    apply(pageNum, page, pageExists);
+  }
+
+  /**
+   * Writes the navigation bar into the specified page's inventory, unless it is already up to date,
+   * deciding which neighbour pages exist through the specified predicate.
+   *
+   * @param pageNum page number
+   * @param page page
+   * @param pageExists whether a page number exists
+   */
+  void apply(int pageNum, Page page, IntPredicate pageExists) {
+    int current = version.get();
+    Applied previous = applied.get(page.getPageUUID());
+    if (previous != null && previous.version == current) {
+      return;
+    }
+    Inventory inventory = page.getInventory();
+    NavigationLayer pageLayer = pageLayers.get(pageNum);
+    int length =
+        Math.min(
+            inventory.getSize(),
+            Math.max(global.length(), pageLayer != null ? pageLayer.length() : 0));
+    BitSet slots = new BitSet(length);
+    for (int slot = 0; slot < length; slot++) {
+      NavigationLayer layer = layerFor(pageNum, slot, pageExists);
+      if (layer != null) {
+        inventory.setItem(slot, layer.getStack(slot));
+        slots.set(slot);
+      }
+    }
+    if (previous != null) {
+      for (int slot = previous.slots.nextSetBit(0);
+          slot >= 0 && slot < inventory.getSize();
+          slot = previous.slots.nextSetBit(slot + 1)) {
+        if (!slots.get(slot)) {
+          inventory.setItem(slot, null);
+        }
+      }
+    }
+    applied.put(page.getPageUUID(), new Applied(current, slots));
+  }
+
+  private NavigationLayer layerFor(int page, int slot, IntPredicate pageExists) {
+    // checked first so resolving a click doesn't box the page number when there are no overrides
+    NavigationLayer layer = pageLayers.isEmpty() ? null : pageLayers.get(page);
+    if (layer == null || layer.get(slot) == null) {
+      layer = global;
+    }
+    NavigationItem item = layer.get(slot);
+    if (item == null) {
+      return null;
+    }
+    if (hideUnavailable) {
+      switch (item.getAction()) {
+        case PREVIOUS_PAGE:
+          return pageExists.test(page - 1) ? layer : null;
+        case NEXT_PAGE:
+          return pageExists.test(page + 1) ? layer : null;
+        default:
+          break;
+      }
+    }
+    return layer;
+  }
+
+  private ItemStack stack(NavigationItem item) {
+    NamespacedKey key = tagKey;
+    if (key == null) {
+      return ItemInterner.internCopy(item.getItem());
+    }
+    ItemStack stack = item.getItem().clone();
+    ItemMeta meta = stack.getItemMeta();
+    if (meta != null) {
+      meta.getPersistentDataContainer()
+          .set(key, PersistentDataType.BYTE, (byte) item.getAction().ordinal());
+      stack.setItemMeta(meta);
+    }
+    return ItemInterner.intern(stack);
+  }
+
+  private static final class Applied {
+
+    private final int version;
+    private final BitSet slots;
+
+    private Applied(int version, BitSet slots) {
+      this.version = version;
+      this.slots = slots;
+    }
+  }
+}
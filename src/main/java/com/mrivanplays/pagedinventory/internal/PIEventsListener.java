@@ -4,24 +4,103 @@ import com.mrivanplays.pagedinventory.api.NavigationItem;
 import com.mrivanplays.pagedinventory.api.Page;
 import com.mrivanplays.pagedinventory.api.PageClick;
 import com.mrivanplays.pagedinventory.api.PageClose;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.inventory.ItemStack;
+import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.plugin.Plugin;
 
-public class PIEventsListener implements Listener {
+/**
+ * The single event dispatcher shared by every {@link PagedInventoryImpl}. Events are routed to the
+ * paged inventory the player is currently viewing, so the cost of handling an event does not grow
+ * with the number of paged inventories alive.
+ */
+public final class PIEventsListener implements Listener {
 
-  private PagedInventoryImpl impl;
-  private Plugin plugin;
+  private static volatile PIEventsListener instance;
 
-  public PIEventsListener(PagedInventoryImpl impl, Plugin plugin) {
-    this.impl = impl;
+  /**
+   * Returns the shared dispatcher, registering it under the specified plugin if it isn't registered
+   * yet.
+   *
+   * @param plugin plugin to register the dispatcher under
+   * @return dispatcher
+   */
+  public static PIEventsListener register(Plugin plugin) {
+    PIEventsListener current = instance;
+    if (current != null) {
+      return current;
+    }
+    synchronized (PIEventsListener.class) {
+      if (instance == null) {
+        instance = new PIEventsListener(plugin);
+        Bukkit.getPluginManager().registerEvents(instance, plugin);
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * Returns the shared dispatcher if it is currently registered.
+   *
+   * @return dispatcher or null
+   */
+  public static PIEventsListener current() {
+    return instance;
+  }
+
+  private volatile Plugin plugin;
+  private final Map<UUID, ViewerSession> sessions;
+  private final Set<PagedInventoryImpl> attached;
+
+  private PIEventsListener(Plugin plugin) {
     this.plugin = plugin;
+    this.sessions = new ConcurrentHashMap<>();
+    this.attached = ConcurrentHashMap.newKeySet();
+  }
+
+  void attach(PagedInventoryImpl impl) {
+    synchronized (PIEventsListener.class) {
+      attached.add(impl);
+    }
+  }
+
+  /**
+   * Called when a paged inventory gets disposed. Once no paged inventory is attached anymore, the
+   * dispatcher unregisters itself.
+   *
+   * @param impl disposed paged inventory
+   */
+  void detach(PagedInventoryImpl impl) {
+    synchronized (PIEventsListener.class) {
+      attached.remove(impl);
+      if (!attached.isEmpty()) {
+        return;
+      }
+      if (instance == this) {
+        instance = null;
+        HandlerList.unregisterAll(this);
+      }
+    }
+    sessions.clear();
+  }
+
+  void track(ViewerSession session) {
+    sessions.put(session.getViewer(), session);
+  }
+
+  void untrack(ViewerSession session) {
+    sessions.remove(session.getViewer(), session);
   }
 
   @EventHandler
@@ -30,38 +109,51 @@ public class PIEventsListener implements Listener {
       return;
     }
     Player player = (Player) event.getWhoClicked();
-    Optional<Page> pageOptional = impl.getPageViewed(player);
-    if (!pageOptional.isPresent()) {
+    UUID viewerId = player.getUniqueId();
+    ViewerSession session = sessions.get(viewerId);
+    if (session == null) {
       return;
     }
-    Page page = pageOptional.get();
+    // the click path below does not allocate unless a navigation item or a click function is hit
+    Integer pageNum = session.getPage();
+    if (pageNum == null) {
+      return;
+    }
+    PagedInventoryImpl impl = session.getOwner();
     event.setCancelled(true);
-    ItemStack clickedItem = event.getCurrentItem();
-    boolean foundNavItem = false;
-    for (NavigationItem navItem : impl.getNavigationItems().values()) {
-      if (navItem.getItem().isSimilar(clickedItem)) {
-        foundNavItem = true;
-        switch (navItem.getAction()) {
-          case PREVIOUS_PAGE:
-            plugin.getServer().getScheduler().runTask(plugin, () -> impl.openPrevious(player));
-            break;
-          case NEXT_PAGE:
-            plugin.getServer().getScheduler().runTask(plugin, () -> impl.openNext(player));
-            break;
-          case CLOSE:
-            plugin.getServer().getScheduler().runTask(plugin, player::closeInventory);
-            break;
-        }
+    Page page = impl.pageViewed(session, pageNum);
+    if (page == null) {
+      // still looking at the loading inventory
+      return;
+    }
+    int topSlot =
+        event.getClickedInventory() == event.getView().getTopInventory() ? event.getSlot() : -1;
+    NavigationItem navItem = topSlot >= 0 ? impl.getNavigationItem(pageNum, topSlot) : null;
+    if (navItem != null && impl.isNavigationTagged(event.getCurrentItem())) {
+      Plugin owner = impl.getPlugin();
+      switch (navItem.getAction()) {
+        case PREVIOUS_PAGE:
+          impl.navigate(player, session, -1);
+          break;
+        case NEXT_PAGE:
+          impl.navigate(player, session, 1);
+          break;
+        case CLOSE:
+          WorkQueue.start(owner).submit(WorkQueue.Priority.INTERACTION, player::closeInventory);
+          break;
       }
+      return;
     }
-    if (foundNavItem) {
+    if (!impl.hasClickFunctions(pageNum, topSlot)) {
       return;
     }
     impl.callClickFunctions(
+        pageNum,
+        topSlot,
         new PageClick(
             impl,
             page,
-            clickedItem,
+            event.getCurrentItem(),
             player,
             event.getClick(),
             event.getSlot(),
@@ -72,19 +164,65 @@ public class PIEventsListener implements Listener {
   @EventHandler
   public void onClose(InventoryCloseEvent event) {
     Player player = (Player) event.getPlayer();
-    Optional<Page> pageViewed = impl.getPageViewed(player);
-    if (!pageViewed.isPresent()) {
+    ViewerSession session = sessions.get(player.getUniqueId());
+    if (session == null || session.isSwitching()) {
       return;
     }
-    if (impl.getSwitchRegistrar().isSwitching(player.getUniqueId())) {
+    Integer pageNum = session.getPage();
+    if (pageNum == null) {
       return;
     }
-    impl.callCloseFunctions(new PageClose(player, impl, pageViewed.get()));
+    PagedInventoryImpl impl = session.getOwner();
+    Page page = impl.pageViewed(session, pageNum);
+    if (page != null) {
+      impl.callCloseFunctions(new PageClose(player, impl, page));
+    }
     impl.removeViewer(player);
   }
 
   @EventHandler
   public void onQuit(PlayerQuitEvent event) {
-    impl.removeViewer(event.getPlayer());
+    ViewerSession session = sessions.get(event.getPlayer().getUniqueId());
+    if (session != null) {
+      session.getOwner().removeViewer(event.getPlayer());
+    }
+  }
+
+  @EventHandler
+  public void onPluginDisable(PluginDisableEvent event) {
+    Plugin disabled = event.getPlugin();
+    // the paged inventories of the disabled plugin are gone with it, and so must be anything of
+    // theirs the shared work queue would still call into
+    for (PagedInventoryImpl impl : new ArrayList<>(attached)) {
+      if (impl.getPlugin() == disabled) {
+        impl.dispose();
+      }
+    }
+    synchronized (PIEventsListener.class) {
+      attached.removeIf(impl -> impl.getPlugin() == disabled);
+      sessions.values().removeIf(session -> session.getOwner().getPlugin() == disabled);
+      // bukkit drops our handlers and tasks together with the plugin they run under, so move over
+      // to a plugin which still has paged inventories alive, keeping their sessions
+      Plugin successor =
+          attached.stream()
+              .map(PagedInventoryImpl::getPlugin)
+              .filter(Plugin::isEnabled)
+              .findFirst()
+              .orElse(null);
+      WorkQueue.pluginDisabled(disabled, successor);
+      TickMonitor.pluginDisabled(disabled, successor);
+      if (disabled != plugin || instance != this) {
+        return;
+      }
+      if (successor != null) {
+        plugin = successor;
+        Bukkit.getPluginManager().registerEvents(this, successor);
+        return;
+      }
+      // nothing is left, so the next paged inventory built registers the dispatcher again
+      instance = null;
+      attached.clear();
+    }
+    sessions.clear();
   }
 }
@@ -0,0 +1,122 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.Page;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A least recently used cache of the pages built by a {@link
+ * com.mrivanplays.pagedinventory.api.PageProvider}, bounded by size and by time since last access.
+ * Pages which are pinned, i.e. currently viewed, are never evicted.
+ *
+ * <p>Lookups don't lock, so the click and open paths never wait on a page being built or on an
+ * eviction pass. Changes are serialized on the cache itself.
+ */
+final class PageCache {
+
+  private final Map<Integer, Entry> entries;
+  private final IntPredicate pinned;
+  private final ObjIntConsumer<Page> evictionListener;
+  private int maximumSize;
+  private long expireAfterAccessMillis;
+
+  PageCache(IntPredicate pinned, ObjIntConsumer<Page> evictionListener) {
+    this.entries = new ConcurrentHashMap<>();
+    this.pinned = pinned;
+    this.evictionListener = evictionListener;
+    this.maximumSize = 16;
+  }
+
+  synchronized void setMaximumSize(int maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  synchronized void setExpireAfterAccess(long expireAfterAccessMillis) {
+    this.expireAfterAccessMillis = expireAfterAccessMillis;
+  }
+
+  Page get(Integer page) {
+    Entry entry = entries.get(page);
+    if (entry == null) {
+      return null;
+    }
+    entry.lastAccess = System.currentTimeMillis();
+    return entry.page;
+  }
+
+  synchronized void put(int pageNum, Page page) {
+    Entry replaced = entries.put(pageNum, new Entry(page, System.currentTimeMillis()));
+    if (replaced != null && replaced.page != page) {
+      evictionListener.accept(replaced.page, pageNum);
+    }
+    // the page isn't viewed yet, so it would be the first to go if every other page is pinned
+    evict(pageNum);
+  }
+
+  synchronized Page remove(int page) {
+    Entry removed = entries.remove(page);
+    if (removed == null) {
+      return null;
+    }
+    evictionListener.accept(removed.page, page);
+    return removed.page;
+  }
+
+  /** Evicts the pages which expired, then the least recently used ones above the maximum size. */
+  synchronized void evict() {
+    evict(-1);
+  }
+
+  private void evict(int keep) {
+    long expireBefore =
+        expireAfterAccessMillis > 0 ? System.currentTimeMillis() - expireAfterAccessMillis : 0;
+    int excess = entries.size() - maximumSize;
+    if (excess <= 0 && expireBefore == 0) {
+      return;
+    }
+    List<Map.Entry<Integer, Entry>> candidates = new ArrayList<>(entries.entrySet());
+    candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+    for (Map.Entry<Integer, Entry> entry : candidates) {
+      boolean expired = entry.getValue().lastAccess < expireBefore;
+      if (!expired && excess <= 0) {
+        break;
+      }
+      if (entry.getKey() == keep
+          || pinned.test(entry.getKey())
+          || !entries.remove(entry.getKey(), entry.getValue())) {
+        continue;
+      }
+      excess--;
+      evictionListener.accept(entry.getValue().page, entry.getKey());
+    }
+  }
+
+  Map<Integer, Page> snapshot() {
+    Map<Integer, Page> snapshot = new HashMap<>(entries.size());
+    for (Map.Entry<Integer, Entry> entry : entries.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().page);
+    }
+    return snapshot;
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  private static final class Entry {
+
+    private final Page page;
+    private volatile long lastAccess;
+
+    private Entry(Page page, long lastAccess) {
+      this.page = page;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
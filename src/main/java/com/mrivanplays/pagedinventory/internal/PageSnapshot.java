@@ -0,0 +1,303 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.google.common.io.CountingInputStream;
+import com.mrivanplays.pagedinventory.api.NavigationItem;
+import com.mrivanplays.pagedinventory.api.Page;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Saves the pages and navigation items of a paged inventory into a versioned binary snapshot, and
+ * loads them back. The layout is:
+ *
+ * <ol>
+ *   <li>magic and format version
+ *   <li>navigation items: scope, slot and action of each, then all their items in one block
+ *   <li>the page index: number, uuid, inventory type, size, title and whether it's known, and
+ *       where the contents are
+ *   <li>the contents of every page, one encoded block each
+ * </ol>
+ *
+ * Loading reads the navigation items and the page index only. The contents of a page are read
+ * when the page is first opened.
+ */
+final class PageSnapshot {
+
+  private static final int MAGIC = 0x50494e56; // "PINV"
+  private static final int VERSION = 2;
+
+  private final Map<Integer, Page> pages;
+  private final Map<Integer, NavigationItem> navigationItems;
+  private final Map<Integer, Map<Integer, NavigationItem>> pageNavigationItems;
+  private final SnapshotStore store;
+
+  private PageSnapshot(
+      Map<Integer, Page> pages,
+      Map<Integer, NavigationItem> navigationItems,
+      Map<Integer, Map<Integer, NavigationItem>> pageNavigationItems,
+      SnapshotStore store) {
+    this.pages = pages;
+    this.navigationItems = navigationItems;
+    this.pageNavigationItems = pageNavigationItems;
+    this.store = store;
+  }
+
+  Map<Integer, Page> getPages() {
+    return pages;
+  }
+
+  Map<Integer, NavigationItem> getNavigationItems() {
+    return navigationItems;
+  }
+
+  Map<Integer, Map<Integer, NavigationItem>> getPageNavigationItems() {
+    return pageNavigationItems;
+  }
+
+  ContentSource getStore() {
+    return store;
+  }
+
+  /**
+   * Encodes the specified page for a snapshot right away, so that the page may be let go before
+   * the next one is encoded. A page which is asleep has its stored contents copied as they are,
+   * rather than being woken up. Navigation items are left out, as the navigation bar is written
+   * again once a loaded page is shown.
+   *
+   * @param pageNum page number
+   * @param page page
+   * @param navigationSlots slots of the page holding navigation items
+   * @return encoded page
+   * @throws IOException if the stored contents of the page can't be read
+   */
+  static PageEntry encode(int pageNum, Page page, BitSet navigationSlots) throws IOException {
+    PageEntry entry = new PageEntry();
+    entry.pageNum = pageNum;
+    entry.uuid = page.getPageUUID();
+    entry.title = page.getTitle();
+    entry.titleKnown = page.isTitleKnown();
+    if (page instanceof HibernatingPage) {
+      HibernatingPage hibernating = (HibernatingPage) page;
+      entry.type = hibernating.getType();
+      entry.size = hibernating.getSize();
+      entry.data = hibernating.encodeContents(navigationSlots);
+    } else {
+      Inventory inventory = page.getInventory();
+      entry.type = inventory.getType();
+      entry.size = inventory.getSize();
+      entry.data = ItemCodec.encode(inventory.getContents(), navigationSlots);
+    }
+    entry.length = entry.data.length;
+    return entry;
+  }
+
+  /**
+   * Writes a snapshot into the specified file, replacing it once complete.
+   *
+   * @param file file
+   * @param pages pages, encoded through {@link #encode(int, Page, BitSet)}
+   * @param navigationItems navigation items shown on every page, by slot
+   * @param pageNavigationItems navigation items of single pages, by page and slot
+   * @throws IOException if writing fails
+   */
+  static void write(
+      Path file,
+      List<PageEntry> pages,
+      Map<Integer, NavigationItem> navigationItems,
+      Map<Integer, Map<Integer, NavigationItem>> pageNavigationItems)
+      throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+
+      List<ItemStack> navigationStacks = new ArrayList<>();
+      out.writeInt(
+          navigationItems.size()
+              + pageNavigationItems.values().stream().mapToInt(Map::size).sum());
+      for (Map.Entry<Integer, NavigationItem> entry : navigationItems.entrySet()) {
+        writeNavigationItem(out, false, 0, entry.getKey(), entry.getValue(), navigationStacks);
+      }
+      for (Map.Entry<Integer, Map<Integer, NavigationItem>> page : pageNavigationItems.entrySet()) {
+        for (Map.Entry<Integer, NavigationItem> entry : page.getValue().entrySet()) {
+          writeNavigationItem(
+              out, true, page.getKey(), entry.getKey(), entry.getValue(), navigationStacks);
+        }
+      }
+      byte[] navigationBlock = ItemCodec.encode(navigationStacks.toArray(new ItemStack[0]));
+      out.writeInt(navigationBlock.length);
+      out.write(navigationBlock);
+
+      out.writeInt(pages.size());
+      long offset = 0;
+      for (PageEntry entry : pages) {
+        out.writeInt(entry.pageNum);
+        out.writeLong(entry.uuid.getMostSignificantBits());
+        out.writeLong(entry.uuid.getLeastSignificantBits());
+        out.writeUTF(entry.type.name());
+        out.writeInt(entry.size);
+        out.writeBoolean(entry.titleKnown);
+        out.writeBoolean(entry.title != null);
+        if (entry.title != null) {
+          out.writeUTF(entry.title);
+        }
+        out.writeLong(offset);
+        out.writeInt(entry.length);
+        offset += entry.length;
+      }
+      for (PageEntry entry : pages) {
+        out.write(entry.data);
+      }
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeNavigationItem(
+      DataOutputStream out,
+      boolean pageScoped,
+      int page,
+      int slot,
+      NavigationItem item,
+      List<ItemStack> stacks)
+      throws IOException {
+    out.writeBoolean(pageScoped);
+    out.writeInt(page);
+    out.writeInt(slot);
+    out.writeUTF(item.getAction().name());
+    stacks.add(item.getItem());
+  }
+
+  /**
+   * Reads the snapshot in the specified file. The file stays open for the contents of the pages to
+   * be read lazily, until the store of the snapshot is closed.
+   *
+   * @param file file
+   * @return snapshot
+   * @throws IOException if the file can't be read or isn't a supported snapshot
+   */
+  static PageSnapshot read(Path file) throws IOException {
+    Map<Integer, NavigationItem> navigationItems = new HashMap<>();
+    Map<Integer, Map<Integer, NavigationItem>> pageNavigationItems = new HashMap<>();
+    List<PageEntry> entries;
+    long dataStart;
+    try (CountingInputStream counting =
+            new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        DataInputStream in = new DataInputStream(counting)) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(file + " is not a paged inventory snapshot");
+      }
+      int version = in.readShort();
+      if (version != VERSION) {
+        throw new IOException("Unsupported snapshot version " + version + " in " + file);
+      }
+
+      int navigationCount = in.readInt();
+      boolean[] pageScoped = new boolean[navigationCount];
+      int[] navigationPages = new int[navigationCount];
+      int[] navigationSlots = new int[navigationCount];
+      NavigationItem.Action[] actions = new NavigationItem.Action[navigationCount];
+      for (int i = 0; i < navigationCount; i++) {
+        pageScoped[i] = in.readBoolean();
+        navigationPages[i] = in.readInt();
+        navigationSlots[i] = in.readInt();
+        actions[i] = action(in.readUTF());
+      }
+      byte[] navigationBlock = new byte[in.readInt()];
+      in.readFully(navigationBlock);
+      ItemStack[] navigationStacks = ItemCodec.decode(navigationBlock);
+      if (navigationStacks.length != navigationCount) {
+        throw new IOException("Malformed navigation items in " + file);
+      }
+      for (int i = 0; i < navigationCount; i++) {
+        NavigationItem item = NavigationItem.create(navigationStacks[i], actions[i]);
+        if (pageScoped[i]) {
+          pageNavigationItems
+              .computeIfAbsent(navigationPages[i], page -> new HashMap<>())
+              .put(navigationSlots[i], item);
+        } else {
+          navigationItems.put(navigationSlots[i], item);
+        }
+      }
+
+      int pageCount = in.readInt();
+      entries = new ArrayList<>(pageCount);
+      for (int i = 0; i < pageCount; i++) {
+        PageEntry entry = new PageEntry();
+        entry.pageNum = in.readInt();
+        entry.uuid = new UUID(in.readLong(), in.readLong());
+        entry.type = inventoryType(in.readUTF());
+        entry.size = in.readInt();
+        entry.titleKnown = in.readBoolean();
+        entry.title = in.readBoolean() ? in.readUTF() : null;
+        entry.offset = in.readLong();
+        entry.length = in.readInt();
+        entries.add(entry);
+      }
+      dataStart = counting.getCount();
+    }
+
+    SnapshotStore store = new SnapshotStore(file);
+    Map<Integer, Page> pages = new HashMap<>(entries.size());
+    for (PageEntry entry : entries) {
+      pages.put(
+          entry.pageNum,
+          new HibernatingPage(
+              entry.uuid,
+              entry.title,
+              entry.titleKnown,
+              entry.type,
+              entry.size,
+              store,
+              SnapshotStore.region(dataStart + entry.offset, entry.length)));
+    }
+    return new PageSnapshot(pages, navigationItems, pageNavigationItems, store);
+  }
+
+  private static NavigationItem.Action action(String name) throws IOException {
+    try {
+      return NavigationItem.Action.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Unknown navigation action " + name, e);
+    }
+  }
+
+  private static InventoryType inventoryType(String name) throws IOException {
+    try {
+      return InventoryType.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Unknown inventory type " + name, e);
+    }
+  }
+
+  /** A page of a snapshot: its index entry, and its encoded contents while being written. */
+  static final class PageEntry {
+
+    private int pageNum;
+    private UUID uuid;
+    private InventoryType type;
+    private int size;
+    private String title;
+    private boolean titleKnown;
+    private long offset;
+    private int length;
+    private byte[] data;
+
+    private PageEntry() {}
+  }
+}
@@ -0,0 +1,82 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.Page;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An immutable snapshot of the pages set on a paged inventory, along with their page UUID index.
+ * Changes produce a new snapshot, so readers always see the pages and the index consistent with
+ * each other without locking.
+ */
+final class PageTable {
+
+  static final PageTable EMPTY = new PageTable(Collections.emptyMap(), Collections.emptyMap(), 0);
+
+  private final Map<Integer, Page> pages;
+  private final Map<UUID, Integer> numbers;
+  private final int highestPage;
+
+  private PageTable(Map<Integer, Page> pages, Map<UUID, Integer> numbers, int highestPage) {
+    this.pages = pages;
+    this.numbers = numbers;
+    this.highestPage = highestPage;
+  }
+
+  Page get(Integer pageNum) {
+    return pages.get(pageNum);
+  }
+
+  boolean contains(Integer pageNum) {
+    return pages.containsKey(pageNum);
+  }
+
+  Integer numberOf(UUID page) {
+    return numbers.get(page);
+  }
+
+  boolean isEmpty() {
+    return pages.isEmpty();
+  }
+
+  int getHighestPage() {
+    return highestPage;
+  }
+
+  Map<Integer, Page> asMap() {
+    return pages;
+  }
+
+  PageTable with(int pageNum, Page page) {
+    Map<Integer, Page> newPages = new HashMap<>(pages);
+    Map<UUID, Integer> newNumbers = new HashMap<>(numbers);
+    Page replaced = newPages.put(pageNum, page);
+    if (replaced != null) {
+      newNumbers.remove(replaced.getPageUUID(), pageNum);
+    }
+    newNumbers.put(page.getPageUUID(), pageNum);
+    return new PageTable(
+        Collections.unmodifiableMap(newPages),
+        Collections.unmodifiableMap(newNumbers),
+        pages.isEmpty() ? pageNum : Math.max(highestPage, pageNum));
+  }
+
+  PageTable without(int pageNum) {
+    if (!pages.containsKey(pageNum)) {
+      return this;
+    }
+    Map<Integer, Page> newPages = new HashMap<>(pages);
+    Map<UUID, Integer> newNumbers = new HashMap<>(numbers);
+    Page removed = newPages.remove(pageNum);
+    newNumbers.remove(removed.getPageUUID(), pageNum);
+    int newHighest = pageNum == highestPage ? highest(newPages) : highestPage;
+    return new PageTable(
+        Collections.unmodifiableMap(newPages), Collections.unmodifiableMap(newNumbers), newHighest);
+  }
+
+  private static int highest(Map<Integer, Page> pages) {
+    return pages.isEmpty() ? 0 : Collections.max(pages.keySet());
+  }
+}
@@ -1,51 +1,373 @@
 package com.mrivanplays.pagedinventory.internal;
 
 import com.google.common.base.Preconditions;
+import com.mrivanplays.pagedinventory.api.CursorPage;
+import com.mrivanplays.pagedinventory.api.CursorPageProvider;
 import com.mrivanplays.pagedinventory.api.NavigationItem;
 import com.mrivanplays.pagedinventory.api.Page;
 import com.mrivanplays.pagedinventory.api.PageClick;
 import com.mrivanplays.pagedinventory.api.PageClose;
+import com.mrivanplays.pagedinventory.api.PageProvider;
 import com.mrivanplays.pagedinventory.api.PagedInventory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 
 public class PagedInventoryImpl implements PagedInventory {
 
-  private Map<Integer, Page> pages;
+  /** Average tick duration above which adjacent pages are no longer prefetched. */
+  private static final double PREFETCH_MAX_TICK_MILLIS = 55;
+
+  private final Plugin plugin;
+  private volatile PageTable pages;
+  private PageProvider pageProvider;
+  private PageCache pageCache;
+  private Executor asyncExecutor;
+  private Inventory loadingInventory;
+  private Map<Integer, CompletableFuture<Page>> loadingPages;
+  private Map<UUID, Integer> pendingViewers;
+  private int prefetchDepth;
+  private CursorNavigator cursorNavigator;
+  private Map<Integer, CompletableFuture<Page>> prefetchedPages;
   private Map<Integer, NavigationItem> navigationItems;
-  private Map<UUID, UUID> viewers;
-  private Set<Consumer<PageClick>> clickFunctions;
-  private Set<Consumer<PageClose>> closeFunctions;
-  private PageSwitchRegistrar switchRegistrar;
+  private NavigationOverlay navigationOverlay;
+  private Map<UUID, Integer> cachedPageNumbers;
+  private Map<UUID, ViewerSession> viewers;
+  private Map<Integer, Set<UUID>> pageViewers;
+  private ClickRouter clickFunctions;
+  private Handlers<PageClose> closeFunctions;
+  private DynamicItems dynamicItems;
+  private PersonalItems personalItems;
+  private InventoryPool inventoryPool;
   private UUID pagedInentoryUUID;
+  private PIEventsListener dispatcher;
+  private boolean disposeWhenEmpty;
+  private long expiryTicks;
+  private long navigationCooldownMillis;
+  private LongAdder suppressedNavigations;
+  private volatile boolean warnedUntitledPersonalPage;
+  private BukkitTask expiryTask;
+  private long hibernateAfterMillis;
+  private Path hibernationFile;
+  private HibernationStore hibernationStore;
+  private BukkitTask hibernationTask;
+  private Map<Integer, Long> idleSince;
+  private List<ContentSource> snapshotStores;
+  private volatile boolean disposed;
 
-  public PagedInventoryImpl() {
-    this.pages = new ConcurrentHashMap<>();
+  public PagedInventoryImpl(Plugin plugin) {
+    this.plugin = plugin;
+    this.pages = PageTable.EMPTY;
     this.navigationItems = new ConcurrentHashMap<>();
+    this.navigationOverlay = new NavigationOverlay(this::pageExists);
+    this.cachedPageNumbers = new ConcurrentHashMap<>();
     this.viewers = new ConcurrentHashMap<>();
-    clickFunctions = new HashSet<>();
-    closeFunctions = new HashSet<>();
-    switchRegistrar = new PageSwitchRegistrar();
+    this.pageViewers = new ConcurrentHashMap<>();
+    this.dynamicItems = new DynamicItems();
+    this.personalItems = new PersonalItems();
+    this.idleSince = new ConcurrentHashMap<>();
+    this.snapshotStores = new ArrayList<>();
+    this.pageCache = new PageCache(this::isPageViewed, this::pageEvicted);
+    this.loadingPages = new ConcurrentHashMap<>();
+    this.suppressedNavigations = new LongAdder();
+    this.pendingViewers = new ConcurrentHashMap<>();
+    this.prefetchedPages = new ConcurrentHashMap<>();
+    clickFunctions = new ClickRouter(new NamespacedKey(plugin, "click"));
+    closeFunctions = new Handlers<>();
     this.pagedInentoryUUID = UUID.randomUUID();
   }
 
+  public void setDisposeWhenEmpty(boolean disposeWhenEmpty) {
+    this.disposeWhenEmpty = disposeWhenEmpty;
+  }
+
+  /**
+   * Makes navigation items carry a tag in their persistent data container, which has to be present
+   * on the clicked item for the navigation action to fire.
+   */
+  public void setNavigationTagCheck(boolean navigationTagCheck) {
+    navigationOverlay.setTagKey(
+        navigationTagCheck ? new NamespacedKey(plugin, "navigation") : null);
+  }
+
+  /**
+   * Makes previous page navigation items hidden on the first page, and next page navigation items
+   * hidden on the last page.
+   */
+  public void setHideUnavailableNavigation(boolean hideUnavailableNavigation) {
+    navigationOverlay.setHideUnavailable(hideUnavailableNavigation);
+  }
+
+  public void setPageProvider(PageProvider pageProvider) {
+    this.pageProvider = pageProvider;
+  }
+
+  /**
+   * Makes pages of the page provider get built asynchronously on the specified executor.
+   *
+   * @param asyncExecutor executor
+   * @param loadingInventory inventory shown while the page is being built, may be null
+   */
+  public void setAsyncLoading(Executor asyncExecutor, Inventory loadingInventory) {
+    this.asyncExecutor = asyncExecutor;
+    this.loadingInventory = loadingInventory;
+  }
+
+  public void setCursorPageProvider(CursorPageProvider<?> provider, int historySize) {
+    this.cursorNavigator = new CursorNavigator(this, provider, historySize);
+  }
+
+  public void setPrefetchDepth(int prefetchDepth) {
+    this.prefetchDepth = prefetchDepth;
+  }
+
+  public void setPageCacheSize(int pageCacheSize) {
+    pageCache.setMaximumSize(pageCacheSize);
+  }
+
+  public void setPageCacheExpiry(long expireAfterAccessMillis) {
+    pageCache.setExpireAfterAccess(expireAfterAccessMillis);
+  }
+
+  public void setExpiry(long expiryTicks) {
+    this.expiryTicks = expiryTicks;
+  }
+
+  public static void setWorkBudget(long budgetNanos) {
+    WorkQueue.setBudget(budgetNanos);
+  }
+
+  public void setInventoryPooling(int maxIdlePerKind) {
+    this.inventoryPool = new InventoryPool(plugin, maxIdlePerKind);
+  }
+
+  public void setHibernation(long hibernateAfterMillis, Path hibernationFile) {
+    this.hibernateAfterMillis = hibernateAfterMillis;
+    this.hibernationFile = hibernationFile;
+  }
+
+  /**
+   * Sets the pages and navigation items of the specified snapshot file on this paged inventory. The
+   * contents of the pages are read once they're first opened, so the file stays open until this
+   * paged inventory is disposed.
+   *
+   * @param file snapshot file
+   * @throws IOException if the snapshot can't be read
+   */
+  public synchronized void loadSnapshot(Path file) throws IOException {
+    PageSnapshot snapshot = PageSnapshot.read(file);
+    // pages of an earlier snapshot may still be asleep, reading from its store
+    snapshotStores.add(snapshot.getStore());
+    for (Map.Entry<Integer, Page> entry : snapshot.getPages().entrySet()) {
+      putPage(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Integer, NavigationItem> entry : snapshot.getNavigationItems().entrySet()) {
+      setNavigationItem(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Integer, Map<Integer, NavigationItem>> page :
+        snapshot.getPageNavigationItems().entrySet()) {
+      for (Map.Entry<Integer, NavigationItem> entry : page.getValue().entrySet()) {
+        setNavigationItem(page.getKey(), entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  @Override
+  public void saveSnapshot(@NotNull Path file) throws IOException {
+    Preconditions.checkNotNull(file, "file");
+    Preconditions.checkState(
+        cursorNavigator == null, "Paged inventories of a cursor page provider can't be saved");
+    // every page is encoded as soon as it's at hand, so none has to be kept around meanwhile
+    List<PageSnapshot.PageEntry> saved = new ArrayList<>();
+    Map<Integer, Page> set = new TreeMap<>(pages.asMap());
+    for (Map.Entry<Integer, Page> entry : set.entrySet()) {
+      saved.add(encodePage(entry.getKey(), entry.getValue()));
+    }
+    if (pageProvider != null) {
+      for (int pageNum = 1; providesPage(pageNum); pageNum++) {
+        if (set.containsKey(pageNum)) {
+          continue;
+        }
+        Page page = pageAt(pageNum);
+        if (page != null) {
+          saved.add(encodePage(pageNum, page));
+          continue;
+        }
+        // built past the page cache, so saving doesn't evict the pages being viewed
+        page = pageProvider.createPage(pageNum);
+        saved.add(encodePage(pageNum, page));
+        releaseInventory(page);
+      }
+    }
+    PageSnapshot.write(file, saved, new HashMap<>(navigationItems), navigationOverlay.pageItems());
+  }
+
+  private PageSnapshot.PageEntry encodePage(int pageNum, Page page) throws IOException {
+    return PageSnapshot.encode(pageNum, page, navigationOverlay.slots(pageNum, page.getPageUUID()));
+  }
+
+  public void setNavigationCooldown(long navigationCooldownMillis) {
+    this.navigationCooldownMillis = navigationCooldownMillis;
+  }
+
+  /** Attaches this paged inventory to the shared dispatcher and schedules its expiry, if any. */
+  public void start() {
+    dispatcher = PIEventsListener.register(plugin);
+    dispatcher.attach(this);
+    if (inventoryPool != null && pageProvider instanceof ItemPageProvider) {
+      ((ItemPageProvider) pageProvider).setInventoryPool(inventoryPool);
+    }
+    if (hibernateAfterMillis > 0) {
+      hibernationStore = openHibernationStore();
+      hibernationTask =
+          plugin.getServer().getScheduler().runTaskTimer(plugin, this::hibernateIdlePages, 20, 20);
+    }
+    if (expiryTicks > 0) {
+      expiryTask =
+          plugin.getServer().getScheduler().runTaskLater(plugin, this::dispose, expiryTicks);
+    }
+  }
+
+  private HibernationStore openHibernationStore() {
+    if (hibernationFile != null) {
+      try {
+        return new FileHibernationStore(hibernationFile);
+      } catch (IOException e) {
+        plugin
+            .getLogger()
+            .log(
+                Level.WARNING,
+                "Could not open " + hibernationFile + ", hibernating pages on the heap instead",
+                e);
+      }
+    }
+    return new HeapHibernationStore();
+  }
+
+  /**
+   * Queues putting to sleep the pages which nobody has viewed for the hibernation time. Pages of a
+   * page provider aren't hibernated, as the page cache drops them already, and neither are pages
+   * whose title is unknown, as they'd wake up with the default title.
+   */
+  private void hibernateIdlePages() {
+    long now = System.currentTimeMillis();
+    for (Map.Entry<Integer, Page> entry : pages.asMap().entrySet()) {
+      Integer pageNum = entry.getKey();
+      if (isPageViewed(pageNum)) {
+        idleSince.remove(pageNum);
+        continue;
+      }
+      Page page = entry.getValue();
+      if (!page.isTitleKnown()) {
+        continue;
+      }
+      long since = idleSince.computeIfAbsent(pageNum, key -> now);
+      if (page instanceof HibernatingPage) {
+        HibernatingPage hibernating = (HibernatingPage) page;
+        if (hibernating.isHibernating()) {
+          continue;
+        }
+        since = Math.max(since, hibernating.getAwakeSince());
+      }
+      if (now - since >= hibernateAfterMillis) {
+        WorkQueue.start(plugin).submit(WorkQueue.Priority.REFRESH, () -> hibernate(pageNum));
+      }
+    }
+  }
+
+  private synchronized void hibernate(int pageNum) {
+    Page page = pages.get(pageNum);
+    if (page == null || disposed || isPageViewed(pageNum) || !page.isTitleKnown()) {
+      return;
+    }
+    // pages loaded from a snapshot hibernate into the hibernation store, not the snapshot
+    HibernatingPage hibernating =
+        page instanceof HibernatingPage && ((HibernatingPage) page).hibernatesInto(hibernationStore)
+            ? (HibernatingPage) page
+            : new HibernatingPage(page, hibernationStore);
+    try {
+      if (!hibernating.hibernate(navigationOverlay.slots(pageNum, page.getPageUUID()))) {
+        return;
+      }
+    } catch (IOException e) {
+      plugin.getLogger().log(Level.WARNING, "Could not hibernate page " + pageNum, e);
+      return;
+    }
+    idleSince.remove(pageNum);
+    // the woken up inventory has no navigation applied to it yet
+    navigationOverlay.forget(page.getPageUUID());
+    if (hibernating != page) {
+      // same uuid and page number, so lookups by either are unaffected
+      pages = pages.with(pageNum, hibernating);
+    }
+  }
+
   @Override
   public void addOnClickFunction(@NotNull Consumer<PageClick> onClick) {
     Preconditions.checkNotNull(onClick, "onClick");
     clickFunctions.add(onClick);
   }
 
+  @Override
+  public void addOnClickFunction(int page, int slot, @NotNull Consumer<PageClick> onClick) {
+    Preconditions.checkNotNull(onClick, "onClick");
+    Preconditions.checkArgument(slot >= 0, "slot cannot be negative");
+    clickFunctions.add(page, slot, onClick);
+  }
+
+  @Override
+  public void addOnSlotClickFunction(
+      int fromSlot, int toSlot, @NotNull Consumer<PageClick> onClick) {
+    Preconditions.checkNotNull(onClick, "onClick");
+    Preconditions.checkArgument(
+        fromSlot >= 0 && fromSlot <= toSlot, "invalid slot range %s-%s", fromSlot, toSlot);
+    clickFunctions.addRange(fromSlot, toSlot, onClick);
+  }
+
+  @Override
+  public void addOnItemClickFunction(
+      @NotNull String itemKey, @NotNull Consumer<PageClick> onClick) {
+    Preconditions.checkNotNull(itemKey, "itemKey");
+    Preconditions.checkNotNull(onClick, "onClick");
+    clickFunctions.add(itemKey, onClick);
+  }
+
+  @Override
+  @NotNull
+  public ItemStack tagItem(@NotNull ItemStack item, @NotNull String itemKey) {
+    Preconditions.checkNotNull(item, "item");
+    Preconditions.checkNotNull(itemKey, "itemKey");
+    return clickFunctions.tag(item, itemKey);
+  }
+
   @Override
   public void addOnCloseFunction(@NotNull Consumer<PageClose> onClose) {
     Preconditions.checkNotNull(onClose, "onClose");
@@ -55,100 +377,621 @@ public class PagedInventoryImpl implements PagedInventory {
   @Override
   @NotNull
   public Optional<Page> getPage(int page) {
-    return Optional.ofNullable(pages.get(page));
+    return Optional.ofNullable(resolvePage(page));
   }
 
   @Override
   public @NotNull Optional<Page> getPage(@NotNull UUID page) {
     Preconditions.checkNotNull(page, "page");
-    return pages.values().stream().filter(v -> v.getPageUUID().equals(page)).findFirst();
+    Integer pageNum = pageNumberOf(page);
+    return pageNum != null ? Optional.ofNullable(pageAt(pageNum)) : Optional.empty();
+  }
+
+  /**
+   * Returns the page with the specified number if it's present, without building it.
+   *
+   * @param pageNum page number
+   * @return page or null
+   */
+  Page pageAt(Integer pageNum) {
+    Page page = pages.get(pageNum);
+    return page != null || pageProvider == null ? page : pageCache.get(pageNum);
+  }
+
+  /**
+   * Returns the page with the specified number, building it through the page provider if needed.
+   *
+   * @param pageNum page number
+   * @return page or null if there's no such page
+   */
+  private Page resolvePage(int pageNum) {
+    Page page = pageAt(pageNum);
+    if (page != null || !providesPage(pageNum)) {
+      return page;
+    }
+    synchronized (this) {
+      page = pageCache.get(pageNum);
+      return page != null ? page : cachePage(pageNum, pageProvider.createPage(pageNum));
+    }
+  }
+
+  private synchronized Page cachePage(int pageNum, Page page) {
+    Page present = pageAt(pageNum);
+    if (present != null) {
+      return present;
+    }
+    cachedPageNumbers.put(page.getPageUUID(), pageNum);
+    pageCache.put(pageNum, page);
+    return page;
+  }
+
+  /**
+   * Builds the specified page of the page provider asynchronously. The returned future completes on
+   * the server thread, once the page is cached. Loads of the same page are shared.
+   *
+   * @param pageNum page number
+   * @return future of the page
+   */
+  private CompletableFuture<Page> loadPage(int pageNum) {
+    CompletableFuture<Page> inFlight = loadingPages.get(pageNum);
+    if (inFlight != null) {
+      return inFlight;
+    }
+    CompletableFuture<Page> result = new CompletableFuture<>();
+    loadingPages.put(pageNum, result);
+    CompletableFuture<Page> creation = pageProvider.createPageAsync(pageNum, asyncExecutor);
+    result.whenComplete(
+        (page, error) -> {
+          if (result.isCancelled()) {
+            loadingPages.remove(pageNum, result);
+            creation.cancel(true);
+          }
+        });
+    creation.whenComplete(
+            (page, error) ->
+                WorkQueue.start(plugin)
+                    .submit(
+                        WorkQueue.Priority.OPEN,
+                        () -> {
+                          loadingPages.remove(pageNum, result);
+                          if (result.isDone()) {
+                            return;
+                          }
+                          if (error != null) {
+                            result.completeExceptionally(error);
+                          } else if (disposed) {
+                            result.cancel(false);
+                          } else {
+                            result.complete(cachePage(pageNum, page));
+                          }
+                        }));
+    return result;
+  }
+
+  /**
+   * Starts building the pages around the specified one in the background, so that flipping to them
+   * doesn't have to wait for them to be built. Backs off while the server is lagging.
+   *
+   * @param pageNum the page being viewed
+   */
+  private void prefetchAround(int pageNum) {
+    if (prefetchDepth <= 0
+        || TickMonitor.start(plugin).getAverageTickMillis() > PREFETCH_MAX_TICK_MILLIS) {
+      return;
+    }
+    for (int distance = 1; distance <= prefetchDepth; distance++) {
+      prefetch(pageNum + distance);
+      prefetch(pageNum - distance);
+    }
+  }
+
+  private void prefetch(int pageNum) {
+    if (!providesPage(pageNum) || pageAt(pageNum) != null || loadingPages.containsKey(pageNum)) {
+      return;
+    }
+    prefetchedPages.put(pageNum, loadPage(pageNum));
+  }
+
+  /**
+   * Drops the prefetched pages which are no longer around any page being viewed, cancelling their
+   * build if it's still running.
+   */
+  private void dropPrefetchedPages() {
+    if (prefetchedPages.isEmpty()) {
+      return;
+    }
+    Set<Integer> viewed = viewedPages();
+    viewed.addAll(pendingViewers.values());
+    for (Map.Entry<Integer, CompletableFuture<Page>> entry : prefetchedPages.entrySet()) {
+      int pageNum = entry.getKey();
+      if (isAround(pageNum, viewed)) {
+        continue;
+      }
+      prefetchedPages.remove(pageNum, entry.getValue());
+      if (!entry.getValue().cancel(false)) {
+        pageCache.remove(pageNum);
+      }
+    }
+  }
+
+  private boolean isAround(int pageNum, Set<Integer> viewed) {
+    for (int distance = -prefetchDepth; distance <= prefetchDepth; distance++) {
+      if (viewed.contains(pageNum + distance)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean providesPage(int pageNum) {
+    return pageProvider != null && pageNum >= 1 && pageNum <= pageProvider.getPageCount();
+  }
+
+  private boolean pageExists(int pageNum) {
+    if (cursorNavigator != null) {
+      // cursor pages are per viewer, their neighbours are known by the viewer's session only
+      return pageNum >= 1;
+    }
+    return pages.contains(pageNum) || providesPage(pageNum);
+  }
+
+  /**
+   * Fetches the page after the specified cursor, asynchronously if asynchronous page loading is
+   * enabled. The returned future completes on the server thread.
+   *
+   * @param provider cursor page provider
+   * @param cursor cursor
+   * @return future of the fetched page
+   */
+  <C> CompletableFuture<CursorPage<C>> fetchCursorPage(CursorPageProvider<C> provider, C cursor) {
+    CompletableFuture<CursorPage<C>> result = new CompletableFuture<>();
+    if (asyncExecutor == null) {
+      try {
+        result.complete(provider.fetchPage(cursor));
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    }
+    provider
+        .fetchPageAsync(cursor, asyncExecutor)
+        .whenComplete(
+            (page, error) ->
+                WorkQueue.start(plugin)
+                    .submit(
+                        WorkQueue.Priority.OPEN,
+                        () -> {
+                          if (error != null) {
+                            result.completeExceptionally(error);
+                          } else if (disposed) {
+                            result.cancel(false);
+                          } else {
+                            result.complete(page);
+                          }
+                        }));
+    return result;
+  }
+
+  void openCursorPage(Player viewer, int position, Page page, IntPredicate available) {
+    applyNavigation(position, page, available);
+    openInventory(viewer, position, page.getInventory(), null);
+  }
+
+  void applyNavigation(int pageNum, Page page, IntPredicate available) {
+    navigationOverlay.apply(pageNum, page, available);
+  }
+
+  void forgetNavigation(Page page) {
+    navigationOverlay.forget(page.getPageUUID());
+  }
+
+  private void pageEvicted(Page page, int pageNum) {
+    cachedPageNumbers.remove(page.getPageUUID(), pageNum);
+    navigationOverlay.forget(page.getPageUUID());
+    if (inventoryPool != null) {
+      // only inventories leased from the pool are taken back
+      inventoryPool.release(page.getInventory());
+    }
   }
 
   @Override
   @NotNull
   public OptionalInt getPageNumber(@NotNull Page page) {
     Preconditions.checkNotNull(page, "page");
-    return pages.entrySet().stream()
-        .filter(entry -> entry.getValue().getPageUUID().equals(page.getPageUUID()))
-        .mapToInt(Entry::getKey)
-        .findFirst();
+    return getPageNumber(page.getPageUUID());
   }
 
   @Override
   public @NotNull OptionalInt getPageNumber(@NotNull UUID page) {
     Preconditions.checkNotNull(page, "page");
-    return pages.entrySet().stream()
-        .filter(entry -> entry.getValue().getPageUUID().equals(page))
-        .mapToInt(Entry::getKey)
-        .findFirst();
+    Integer pageNum = pageNumberOf(page);
+    return pageNum != null ? OptionalInt.of(pageNum) : OptionalInt.empty();
   }
 
-  void callClickFunctions(PageClick clickObj) {
-    for (Consumer<PageClick> listener : clickFunctions) {
-      listener.accept(clickObj);
-    }
+  private Integer pageNumberOf(UUID page) {
+    Integer pageNum = pages.numberOf(page);
+    return pageNum != null ? pageNum : cachedPageNumbers.get(page);
+  }
+
+  /**
+   * Returns whether any click function is bound to a click on the specified slot.
+   *
+   * @param pageNum page number
+   * @param slot slot of the top inventory, or -1 if the player's inventory was clicked
+   * @return whether click functions should be called
+   */
+  boolean hasClickFunctions(Integer pageNum, int slot) {
+    return clickFunctions.hasHandlers(pageNum, slot);
+  }
+
+  void callClickFunctions(Integer pageNum, int slot, PageClick clickObj) {
+    clickFunctions.route(pageNum, slot, clickObj);
   }
 
   void callCloseFunctions(PageClose closeObj) {
-    for (Consumer<PageClose> listener : closeFunctions) {
-      listener.accept(closeObj);
-    }
+    closeFunctions.call(closeObj);
   }
 
   @Override
-  public void addPage(@NotNull Page page) {
+  public synchronized void addPage(@NotNull Page page) {
     Preconditions.checkNotNull(page, "page");
-    Collection<Integer> pageNumbers = pages.keySet();
-    if (pageNumbers.isEmpty()) {
-      pages.put(1, page);
+    PageTable current = pages;
+    putPage(current.isEmpty() ? 1 : current.getHighestPage() + 1, page);
+  }
+
+  @Override
+  public synchronized void setPage(int pageNum, @NotNull Page page) {
+    Preconditions.checkNotNull(page, "page");
+    putPage(pageNum, page);
+  }
+
+  @Override
+  public synchronized void removePage(int page) {
+    pageCache.remove(page);
+    Page removed = pages.get(page);
+    if (removed != null) {
+      pages = pages.without(page);
+      pageDropped(removed);
+      pageSetChanged();
+    }
+  }
+
+  private void putPage(int pageNum, Page page) {
+    Page replaced = pages.get(pageNum);
+    // readers see either the old table or the new one, never a half-applied change
+    pages = pages.with(pageNum, page);
+    if (replaced != null && replaced != page) {
+      pageDropped(replaced);
+    }
+    idleSince.remove(pageNum);
+    pageSetChanged();
+  }
+
+  private void pageDropped(Page page) {
+    navigationOverlay.forget(page.getPageUUID());
+    if (page instanceof HibernatingPage) {
+      ((HibernatingPage) page).discard();
+    }
+  }
+
+  private void pageSetChanged() {
+    // whether the neighbour pages exist decides what navigation items are shown
+    if (navigationOverlay.isHidingUnavailable()) {
+      navigationOverlay.invalidate();
+    }
+  }
+
+  @Override
+  public void updatePage(int pageNum, @NotNull ItemStack[] contents) {
+    Preconditions.checkNotNull(contents, "contents");
+    Page page = pageAt(pageNum);
+    if (page == null || disposed) {
       return;
     }
-    int highestPage = Collections.max(pageNumbers, Integer::compare);
-    pages.put(highestPage + 1, page);
+    // validated before queueing, so that callers off the server thread get the failure too
+    int size =
+        page instanceof HibernatingPage
+            ? ((HibernatingPage) page).getSize()
+            : page.getInventory().getSize();
+    Preconditions.checkArgument(
+        contents.length <= size,
+        "contents don't fit into the page (" + contents.length + " > " + size + ")");
+    if (!plugin.getServer().isPrimaryThread()) {
+      ItemStack[] copy = contents.clone();
+      WorkQueue.start(plugin)
+          .submit(WorkQueue.Priority.REFRESH, () -> updatePage(pageNum, copy));
+      return;
+    }
+    Inventory inventory = page.getInventory();
+    for (int slot = 0; slot < contents.length; slot++) {
+      if (navigationOverlay.resolve(pageNum, slot) == null) {
+        updateSlot(inventory, slot, contents[slot]);
+      }
+    }
+    syncPersonalPages(pageNum);
   }
 
   @Override
-  public void setPage(int pageNum, @NotNull Page page) {
-    Preconditions.checkNotNull(page, "page");
-    if (pages.containsKey(pageNum)) {
-      pages.replace(pageNum, page);
-    } else {
-      pages.put(pageNum, page);
+  public void setPersonalItem(@NotNull UUID viewer, int page, int slot, @NotNull ItemStack item) {
+    Preconditions.checkNotNull(viewer, "viewer");
+    Preconditions.checkNotNull(item, "item");
+    Preconditions.checkArgument(slot >= 0, "slot cannot be negative");
+    personalItems.set(viewer, page, slot, ItemInterner.internCopy(item));
+    personalItemChanged(viewer, page, slot);
+  }
+
+  @Override
+  public void removePersonalItem(@NotNull UUID viewer, int page, int slot) {
+    Preconditions.checkNotNull(viewer, "viewer");
+    if (personalItems.remove(viewer, page, slot)) {
+      personalItemChanged(viewer, page, slot);
     }
   }
 
   @Override
-  public void removePage(int page) {
-    pages.remove(page);
+  public void clearPersonalItems(@NotNull UUID viewer) {
+    Preconditions.checkNotNull(viewer, "viewer");
+    if (personalItems.remove(viewer).isEmpty()) {
+      return;
+    }
+    ViewerSession session = viewers.get(viewer);
+    Integer pageNum = session != null ? session.getPage() : null;
+    if (pageNum != null) {
+      // every slot of the view shows the shared page again
+      personalItemChanged(viewer, pageNum, -1);
+    }
+  }
+
+  /**
+   * Writes a changed personal item into the view of the viewer, if the viewer views its page.
+   *
+   * @param viewerId viewer uuid
+   * @param pageNum page number
+   * @param slot changed slot, or -1 if every slot may have changed
+   */
+  private void personalItemChanged(UUID viewerId, int pageNum, int slot) {
+    if (!plugin.getServer().isPrimaryThread()) {
+      WorkQueue.start(plugin)
+          .submit(
+              WorkQueue.Priority.REFRESH, () -> personalItemChanged(viewerId, pageNum, slot));
+      return;
+    }
+    ViewerSession session = viewers.get(viewerId);
+    Integer viewed = session != null ? session.getPage() : null;
+    if (disposed || cursorNavigator != null || viewed == null || viewed != pageNum) {
+      return;
+    }
+    PersonalPage personal = session.getPersonalPage();
+    if (personal == null) {
+      // the viewer views the shared page, so a view of their own has to be assembled
+      Player player = plugin.getServer().getPlayer(viewerId);
+      Page page = pageAt(pageNum);
+      if (player != null && page != null && canPersonalize(pageNum, page)) {
+        open(player, pageNum, page);
+      }
+    } else if (slot < 0) {
+      personal.sync(locked -> isNavigationSlot(pageNum, locked));
+    } else if (!isNavigationSlot(pageNum, slot)) {
+      personal.refresh(slot);
+    }
+  }
+
+  /**
+   * Returns whether a personal view of the specified page can be assembled. The view is a copy of
+   * the page inventory, so the title the page was created with has to be known, or the copy would
+   * show the default title.
+   *
+   * @param pageNum page number
+   * @param page page
+   * @return whether the page title is known
+   */
+  private boolean canPersonalize(int pageNum, Page page) {
+    if (page.isTitleKnown()) {
+      return true;
+    }
+    if (!warnedUntitledPersonalPage) {
+      warnedUntitledPersonalPage = true;
+      plugin
+          .getLogger()
+          .warning(
+              "Personal items of page "
+                  + pageNum
+                  + " are not shown, as the page title is unknown. Create the page with"
+                  + " Page.create(Inventory, String) to show them.");
+    }
+    return false;
+  }
+
+  /**
+   * Brings the personal views of the specified page in step with the shared page.
+   *
+   * @param pageNum page number
+   */
+  private void syncPersonalPages(Integer pageNum) {
+    Set<UUID> viewing = pageViewers.get(pageNum);
+    if (viewing == null) {
+      return;
+    }
+    for (UUID viewer : viewing) {
+      ViewerSession session = viewers.get(viewer);
+      PersonalPage personal = session != null ? session.getPersonalPage() : null;
+      if (personal != null) {
+        personal.sync(slot -> isNavigationSlot(pageNum, slot));
+      }
+    }
+  }
+
+  private boolean isNavigationSlot(int pageNum, int slot) {
+    return navigationOverlay.resolve(pageNum, slot) != null;
+  }
+
+  @Override
+  public void setDynamicItem(
+      int page, int slot, @NotNull Supplier<ItemStack> item, long period, @NotNull TimeUnit unit) {
+    Preconditions.checkNotNull(item, "item");
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkArgument(slot >= 0, "slot cannot be negative");
+    Preconditions.checkArgument(period > 0, "period must be positive");
+    Preconditions.checkState(!disposed, "PagedInventory disposed");
+    dynamicItems.set(page, slot, item, Math.max(1, unit.toMillis(period) / 50));
+    WorkQueue.start(plugin).addDynamicItems(this);
+  }
+
+  @Override
+  public void removeDynamicItem(int page, int slot) {
+    if (dynamicItems.remove(page, slot) && dynamicItems.isEmpty()) {
+      stopDynamicItems();
+    }
+  }
+
+  private void stopDynamicItems() {
+    WorkQueue queue = WorkQueue.current();
+    if (queue != null) {
+      queue.removeDynamicItems(this);
+    }
+  }
+
+  /**
+   * Re-evaluates the due dynamic items of the pages which are being viewed, leaving navigation
+   * item slots untouched. Called by the {@link WorkQueue} every tick.
+   *
+   * @param tick current tick
+   */
+  void refreshDynamicItems(long tick) {
+    for (Map.Entry<Integer, Set<UUID>> entry : pageViewers.entrySet()) {
+      Integer pageNum = entry.getKey();
+      if (!dynamicItems.isDue(pageNum, tick)) {
+        continue;
+      }
+      IntPredicate locked = slot -> isNavigationSlot(pageNum, slot);
+      if (cursorNavigator == null) {
+        Page page = pageAt(pageNum);
+        if (page != null) {
+          dynamicItems.refresh(pageNum, page.getInventory(), tick, locked);
+          syncPersonalPages(pageNum);
+        }
+      } else {
+        // every viewer of a cursor position has a page of their own
+        for (UUID viewer : entry.getValue()) {
+          Page page = cursorNavigator.pageOf(viewer);
+          if (page != null) {
+            dynamicItems.refresh(pageNum, page.getInventory(), tick, locked);
+          }
+        }
+      }
+      dynamicItems.advance(pageNum, tick);
+    }
+  }
+
+  /**
+   * Writes the specified item into the specified slot, unless the slot already holds an equal one.
+   *
+   * @param inventory inventory
+   * @param slot slot
+   * @param item item or null for an empty slot
+   * @return whether the slot was written
+   */
+  static boolean updateSlot(Inventory inventory, int slot, ItemStack item) {
+    ItemStack current = inventory.getItem(slot);
+    if (isEmpty(current) ? isEmpty(item) : current.equals(item)) {
+      return false;
+    }
+    inventory.setItem(slot, item);
+    return true;
+  }
+
+  private static boolean isEmpty(ItemStack item) {
+    return item == null || item.getType() == Material.AIR;
   }
 
   @Override
   @NotNull
   public Map<Integer, Page> getPages() {
-    return Collections.unmodifiableMap(pages);
+    if (pageProvider == null) {
+      return pages.asMap();
+    }
+    Map<Integer, Page> built = pageCache.snapshot();
+    built.putAll(pages.asMap());
+    return Collections.unmodifiableMap(built);
   }
 
   @Override
   public void setNavigationItem(int pos, @NotNull NavigationItem item) {
     Preconditions.checkNotNull(item, "item");
-    if (navigationItems.containsKey(pos)) {
-      navigationItems.replace(pos, item);
-    } else {
-      navigationItems.put(pos, item);
-    }
-    for (int i : pages.keySet()) {
-      pages.get(i).getInventory().setItem(pos, item.getItem());
-    }
+    navigationItems.put(pos, item);
+    navigationOverlay.set(pos, item);
+    refreshNavigation();
+  }
+
+  @Override
+  public void setNavigationItem(int page, int pos, @NotNull NavigationItem item) {
+    Preconditions.checkNotNull(item, "item");
+    navigationOverlay.set(page, pos, item);
+    refreshNavigation();
   }
 
   @Override
   public void removeNavigationItem(int pos) {
-    NavigationItem item = navigationItems.remove(pos);
-    for (int i : pages.keySet()) {
-      pages.get(i).getInventory().remove(item.getItem());
+    navigationItems.remove(pos);
+    if (navigationOverlay.remove(pos) != null) {
+      refreshNavigation();
+    }
+  }
+
+  @Override
+  public void removeNavigationItem(int page, int pos) {
+    if (navigationOverlay.remove(page, pos) != null) {
+      refreshNavigation();
+    }
+  }
+
+  /**
+   * Queues writing the changed navigation bar into the pages which are being looked at right now,
+   * one page at a time.
+   */
+  private void refreshNavigation() {
+    if (viewers.isEmpty()) {
+      return;
+    }
+    WorkQueue queue = WorkQueue.start(plugin);
+    if (cursorNavigator != null) {
+      queue.submit(WorkQueue.Priority.REFRESH, cursorNavigator::applyNavigation);
+      return;
+    }
+    for (int pageNum : viewedPages()) {
+      queue.submit(
+          WorkQueue.Priority.REFRESH,
+          () -> {
+            Page page = pageAt(pageNum);
+            if (page != null && !disposed) {
+              navigationOverlay.apply(pageNum, page);
+              syncPersonalPages(pageNum);
+            }
+          });
     }
   }
 
+  /**
+   * Resolves the navigation item placed on the specified slot of the specified page.
+   *
+   * @param page page number
+   * @param slot clicked slot of the top inventory
+   * @return navigation item or null
+   */
+  NavigationItem getNavigationItem(int page, int slot) {
+    return navigationOverlay.resolve(page, slot);
+  }
+
+  /**
+   * Returns whether the clicked item carries the navigation tag, if navigation tags are checked.
+   *
+   * @param clickedItem clicked item
+   * @return whether the click may trigger a navigation action
+   */
+  boolean isNavigationTagged(ItemStack clickedItem) {
+    return navigationOverlay.isTagged(clickedItem);
+  }
+
   @Override
   @NotNull
   public Map<Integer, NavigationItem> getNavigationItems() {
@@ -158,73 +1001,414 @@ public class PagedInventoryImpl implements PagedInventory {
   @Override
   public void open(@NotNull Player viewer, int page) {
     Preconditions.checkNotNull(viewer, "viewer");
-    Page pageObj = pages.get(page);
+    Preconditions.checkState(!disposed, "PagedInventory disposed");
+    if (cursorNavigator != null) {
+      if (page == 1) {
+        cursorNavigator.openFirst(viewer);
+      }
+      return;
+    }
+    // whatever the viewer was waiting for before is stale now
+    pendingViewers.remove(viewer.getUniqueId());
+    Page pageObj = asyncExecutor != null ? pageAt(page) : resolvePage(page);
     if (pageObj != null) {
-      open(viewer, pageObj);
+      open(viewer, page, pageObj);
+    } else if (asyncExecutor != null && providesPage(page)) {
+      openAsync(viewer, page);
+    }
+  }
+
+  @Override
+  public void open(@NotNull Collection<? extends Player> players, int page) {
+    Preconditions.checkNotNull(players, "viewers");
+    Preconditions.checkState(!disposed, "PagedInventory disposed");
+    WorkQueue queue = WorkQueue.start(plugin);
+    for (Player viewer : players) {
+      Preconditions.checkNotNull(viewer, "viewer");
+      queue.submit(
+          WorkQueue.Priority.OPEN,
+          () -> {
+            if (!disposed && viewer.isOnline()) {
+              open(viewer, page);
+            }
+          });
     }
   }
 
-  private void open(Player player, Page page) {
-    if (!viewers.containsKey(player.getUniqueId())) {
-      viewers.put(player.getUniqueId(), page.getPageUUID());
+  private void openAsync(Player viewer, int pageNum) {
+    UUID viewerId = viewer.getUniqueId();
+    pendingViewers.put(viewerId, pageNum);
+    if (loadingInventory != null) {
+      openInventory(viewer, pageNum, loadingInventory, null);
+    }
+    loadPage(pageNum)
+        .whenComplete(
+            (page, error) -> {
+              if (!pendingViewers.remove(viewerId, pageNum)) {
+                // the viewer has moved to another page or left meanwhile
+                return;
+              }
+              if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "Could not load page " + pageNum, error);
+              }
+              Player player = plugin.getServer().getPlayer(viewerId);
+              if (player == null) {
+                return;
+              }
+              if (page != null && error == null) {
+                open(player, pageNum, page);
+              } else if (isViewingLoadingInventory(player)) {
+                // nothing is coming, so the viewer mustn't be left on the loading inventory
+                player.closeInventory();
+              }
+            });
+  }
+
+  private boolean isViewingLoadingInventory(Player player) {
+    return loadingInventory != null
+        && player.getOpenInventory().getTopInventory() == loadingInventory;
+  }
+
+  private void open(Player player, int pageNum, Page page) {
+    navigationOverlay.apply(pageNum, page);
+    PersonalPage personal =
+        personalItems.get(player.getUniqueId(), pageNum) != null && canPersonalize(pageNum, page)
+            ? new PersonalPage(
+                page,
+                pageNum,
+                personalItems,
+                player.getUniqueId(),
+                slot -> isNavigationSlot(pageNum, slot),
+                inventoryPool)
+            : null;
+    Inventory inventory = personal != null ? personal.getInventory() : page.getInventory();
+    openInventory(player, pageNum, inventory, personal);
+    if (asyncExecutor != null) {
+      prefetchedPages.remove(pageNum);
+      prefetchAround(pageNum);
+    }
+  }
+
+  private void openInventory(
+      Player player, int pageNum, Inventory inventory, PersonalPage personal) {
+    UUID viewerId = player.getUniqueId();
+    ViewerSession session = viewers.get(viewerId);
+    if (session == null) {
+      session = new ViewerSession(viewerId, this);
+      viewers.put(viewerId, session);
+      moveViewer(session, pageNum);
+      session.setPersonalPage(personal);
+      player.openInventory(inventory);
     } else {
-      viewers.replace(player.getUniqueId(), page.getPageUUID());
-      switchRegistrar.register(player.getUniqueId());
+      // the close of the page being left must not end the session
+      session.setSwitching(true);
+      moveViewer(session, pageNum);
+      PersonalPage previous = session.getPersonalPage();
+      session.setPersonalPage(personal);
+      try {
+        player.openInventory(inventory);
+      } finally {
+        session.setSwitching(false);
+      }
+      if (previous != null && previous != personal) {
+        releaseInventory(previous);
+      }
     }
-    try {
-      player.openInventory(page.getInventory());
-    } finally {
-      switchRegistrar.unregister(player.getUniqueId());
+    // tracked only after the inventory is open, so the close of whatever the player was viewing
+    // before still reaches its owner
+    PIEventsListener.register(plugin).track(session);
+  }
+
+  Plugin getPlugin() {
+    return plugin;
+  }
+
+  /**
+   * Queues a page switch requested by a navigation item. Switches requested within the same tick,
+   * or while the navigation cooldown of the viewer is running, are folded into a single one.
+   *
+   * @param viewer viewer
+   * @param session session of the viewer
+   * @param offset page offset, positive for forward
+   */
+  void navigate(Player viewer, ViewerSession session, int offset) {
+    if (!session.queueNavigation(offset)) {
+      suppressedNavigations.increment();
+      return;
+    }
+    long wait =
+        session.getLastNavigationAt() + navigationCooldownMillis - System.currentTimeMillis();
+    Runnable flush =
+        () ->
+            WorkQueue.start(plugin)
+                .submit(WorkQueue.Priority.INTERACTION, () -> flushNavigation(viewer, session));
+    if (wait > 0) {
+      plugin.getServer().getScheduler().runTaskLater(plugin, flush, (wait + 49) / 50);
+    } else {
+      flush.run();
+    }
+  }
+
+  private void flushNavigation(Player viewer, ViewerSession session) {
+    int offset = session.takeNavigation();
+    if (offset == 0 || disposed || viewers.get(session.getViewer()) != session) {
+      return;
+    }
+    if (cursorNavigator != null) {
+      // the cursor of a page is known only once the page before is fetched, so step once
+      if (offset > 0) {
+        cursorNavigator.openNext(viewer);
+      } else {
+        cursorNavigator.openPrevious(viewer);
+      }
+      return;
+    }
+    Integer current = session.getPage();
+    if (current == null || pageAt(current) == null) {
+      return;
+    }
+    int step = Integer.signum(offset);
+    int target = current;
+    while (target - current != offset && pageExists(target + step)) {
+      target += step;
+    }
+    if (target != current) {
+      open(viewer, target);
     }
   }
 
-  PageSwitchRegistrar getSwitchRegistrar() {
-    return switchRegistrar;
+  @Override
+  public long getSuppressedNavigationCount() {
+    return suppressedNavigations.sum();
   }
 
   @Override
   public void openPrevious(@NotNull Player viewer) {
     Preconditions.checkNotNull(viewer, "viewer");
-    Optional<Page> current = getPageViewed(viewer);
-    if (current.isPresent()) {
-      Page page = current.get();
-      int previousPage = getPageNumber(page).getAsInt() - 1;
-      open(viewer, previousPage);
+    if (cursorNavigator != null) {
+      cursorNavigator.openPrevious(viewer);
+      return;
+    }
+    Integer current = getPageNumberViewed(viewer.getUniqueId());
+    if (current != null && pageAt(current) != null) {
+      open(viewer, current - 1);
     }
   }
 
   @Override
   public void openNext(@NotNull Player viewer) {
     Preconditions.checkNotNull(viewer, "viewer");
-    Optional<Page> current = getPageViewed(viewer);
-    if (current.isPresent()) {
-      Page page = current.get();
-      int nextPage = getPageNumber(page).getAsInt() + 1;
-      open(viewer, nextPage);
+    if (cursorNavigator != null) {
+      cursorNavigator.openNext(viewer);
+      return;
+    }
+    Integer current = getPageNumberViewed(viewer.getUniqueId());
+    if (current != null && pageAt(current) != null) {
+      open(viewer, current + 1);
     }
   }
 
   void removeViewer(Player viewer) {
-    if (switchRegistrar.isSwitching(viewer.getUniqueId())) {
+    ViewerSession session = viewers.get(viewer.getUniqueId());
+    if (session == null || session.isSwitching()) {
+      return;
+    }
+    if (viewers.remove(viewer.getUniqueId(), session)) {
+      unindexViewer(session);
+      if (session.getPersonalPage() != null) {
+        releaseInventory(session.getPersonalPage());
+      }
+    }
+    pendingViewers.remove(viewer.getUniqueId());
+    if (cursorNavigator != null) {
+      cursorNavigator.remove(viewer.getUniqueId());
+    }
+    untrack(session);
+    dropPrefetchedPages();
+    pageCache.evict();
+    if (disposeWhenEmpty && viewers.isEmpty()) {
+      dispose();
+    }
+  }
+
+  private void releaseInventory(Page page) {
+    if (inventoryPool != null) {
+      inventoryPool.release(page.getInventory());
+    }
+  }
+
+  private void untrack(ViewerSession session) {
+    PIEventsListener current = PIEventsListener.current();
+    if (current != null) {
+      current.untrack(session);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    if (disposed) {
       return;
     }
-    viewers.remove(viewer.getUniqueId());
+    if (!plugin.getServer().isPrimaryThread()) {
+      // closing the viewers' inventories has to happen on the server thread
+      plugin.getServer().getScheduler().runTask(plugin, this::dispose);
+      return;
+    }
+    disposed = true;
+    if (expiryTask != null) {
+      expiryTask.cancel();
+      expiryTask = null;
+    }
+    if (hibernationTask != null) {
+      hibernationTask.cancel();
+      hibernationTask = null;
+    }
+    for (ViewerSession session : new ArrayList<>(viewers.values())) {
+      Player player = plugin.getServer().getPlayer(session.getViewer());
+      Optional<Page> page = player != null ? getPageViewed(player) : Optional.empty();
+      if ((page.isPresent()
+              && player.getOpenInventory().getTopInventory() == page.get().getInventory())
+          || (player != null && isViewingLoadingInventory(player))) {
+        // fires the close functions and removes the viewer through the dispatcher
+        player.closeInventory();
+      }
+      if (viewers.remove(session.getViewer(), session)) {
+        unindexViewer(session);
+      }
+      untrack(session);
+    }
+    pages = PageTable.EMPTY;
+    pageCache.clear();
+    pendingViewers.clear();
+    pageViewers.clear();
+    dynamicItems.clear();
+    personalItems.clear();
+    idleSince.clear();
+    if (hibernationStore != null) {
+      hibernationStore.close();
+    }
+    snapshotStores.forEach(ContentSource::close);
+    snapshotStores.clear();
+    if (inventoryPool != null) {
+      inventoryPool.clear();
+    }
+    stopDynamicItems();
+    if (cursorNavigator != null) {
+      cursorNavigator.clear();
+    }
+    prefetchedPages.values().forEach(future -> future.cancel(false));
+    prefetchedPages.clear();
+    cachedPageNumbers.clear();
+    navigationItems.clear();
+    navigationOverlay.clear();
+    clickFunctions.clear();
+    closeFunctions.clear();
+    if (dispatcher != null) {
+      dispatcher.detach(this);
+      dispatcher = null;
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
   }
 
   @Override
   @NotNull
   public Optional<Page> getPageViewed(@NotNull Player viewer) {
     Preconditions.checkNotNull(viewer, "viewer");
-    if (viewers.containsKey(viewer.getUniqueId())) {
-      return getPage(viewers.get(viewer.getUniqueId()));
+    ViewerSession session = viewers.get(viewer.getUniqueId());
+    Integer pageNum = session != null ? session.getPage() : null;
+    return pageNum != null ? Optional.ofNullable(pageViewed(session, pageNum)) : Optional.empty();
+  }
+
+  /**
+   * Returns the page the specified viewer views, without building it.
+   *
+   * @param session session of the viewer
+   * @param pageNum the number of the page viewed
+   * @return page, the view assembled for the viewer if they have personal items on it, or null
+   */
+  Page pageViewed(ViewerSession session, Integer pageNum) {
+    if (cursorNavigator != null) {
+      return cursorNavigator.pageOf(session.getViewer());
+    }
+    PersonalPage personal = session.getPersonalPage();
+    return personal != null ? personal : pageAt(pageNum);
+  }
+
+  /**
+   * Returns the number of the page the specified viewer is viewing.
+   *
+   * @param viewer viewer uuid
+   * @return page number, or null if not viewing
+   */
+  Integer getPageNumberViewed(UUID viewer) {
+    ViewerSession session = viewers.get(viewer);
+    return session != null ? session.getPage() : null;
+  }
+
+  /**
+   * Moves the specified session onto the specified page, keeping the page to viewers index in step.
+   *
+   * @param session session
+   * @param pageNum page number
+   */
+  private void moveViewer(ViewerSession session, int pageNum) {
+    synchronized (session) {
+      unindexViewer(session);
+      session.opened(pageNum);
+      pageViewers
+          .computeIfAbsent(pageNum, page -> ConcurrentHashMap.newKeySet())
+          .add(session.getViewer());
+    }
+  }
+
+  private void unindexViewer(ViewerSession session) {
+    synchronized (session) {
+      Integer previous = session.getPage();
+      if (previous == null) {
+        return;
+      }
+      pageViewers.computeIfPresent(
+          previous,
+          (page, viewing) -> {
+            viewing.remove(session.getViewer());
+            return viewing.isEmpty() ? null : viewing;
+          });
     }
-    return Optional.empty();
+  }
+
+  private boolean isPageViewed(int pageNum) {
+    return pageViewers.containsKey(pageNum);
+  }
+
+  private Set<Integer> viewedPages() {
+    return new HashSet<>(pageViewers.keySet());
+  }
+
+  @Override
+  @NotNull
+  public Set<UUID> getViewers(int page) {
+    Set<UUID> viewing = pageViewers.get(page);
+    return viewing != null
+        ? Collections.unmodifiableSet(new HashSet<>(viewing))
+        : Collections.emptySet();
   }
 
   @Override
   @NotNull
   public Map<UUID, UUID> getViewers() {
-    return Collections.unmodifiableMap(viewers);
+    Map<UUID, UUID> viewed = new HashMap<>(viewers.size());
+    for (ViewerSession session : viewers.values()) {
+      Integer pageNum = session.getPage();
+      Page page = pageNum != null ? pageViewed(session, pageNum) : null;
+      if (page != null) {
+        viewed.put(session.getViewer(), page.getPageUUID());
+      }
+    }
+    return Collections.unmodifiableMap(viewed);
   }
 
   @Override
@@ -0,0 +1,64 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Holds the items which differ per viewer from the shared pages, as sparse slot maps per viewer
+ * and page. Only the overridden slots are stored, so the memory taken grows with the differences
+ * and not with the size of the pages.
+ */
+final class PersonalItems {
+
+  private final Map<UUID, Map<Integer, Map<Integer, ItemStack>>> viewers =
+      new ConcurrentHashMap<>();
+
+  void set(UUID viewer, int page, int slot, ItemStack item) {
+    viewers
+        .computeIfAbsent(viewer, uuid -> new ConcurrentHashMap<>())
+        .computeIfAbsent(page, pageNum -> new ConcurrentHashMap<>())
+        .put(slot, item);
+  }
+
+  boolean remove(UUID viewer, int page, int slot) {
+    Map<Integer, Map<Integer, ItemStack>> pages = viewers.get(viewer);
+    if (pages == null) {
+      return false;
+    }
+    Map<Integer, ItemStack> slots = pages.get(page);
+    if (slots == null || slots.remove(slot) == null) {
+      return false;
+    }
+    if (slots.isEmpty()) {
+      pages.remove(page, slots);
+      if (pages.isEmpty()) {
+        viewers.remove(viewer, pages);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the overridden slots of the specified page for the specified viewer.
+   *
+   * @param viewer viewer uuid
+   * @param page page number
+   * @return live view of the overridden slots, or null if there are none
+   */
+  Map<Integer, ItemStack> get(UUID viewer, Integer page) {
+    Map<Integer, Map<Integer, ItemStack>> pages = viewers.get(viewer);
+    return pages != null ? pages.get(page) : null;
+  }
+
+  Map<Integer, Map<Integer, ItemStack>> remove(UUID viewer) {
+    Map<Integer, Map<Integer, ItemStack>> removed = viewers.remove(viewer);
+    return removed != null ? removed : Collections.emptyMap();
+  }
+
+  void clear() {
+    viewers.clear();
+  }
+}
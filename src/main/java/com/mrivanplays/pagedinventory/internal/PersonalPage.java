@@ -0,0 +1,118 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import com.mrivanplays.pagedinventory.api.Page;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntPredicate;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The view of a shared page assembled for a single viewer: a copy of the page inventory with the
+ * viewer's personal items laid over it. It lives only while the viewer views the page, and shares
+ * the page's {@link UUID}.
+ */
+final class PersonalPage implements Page {
+
+  private final Page template;
+  private final PersonalItems personalItems;
+  private final UUID viewer;
+  private final Integer pageNum;
+  private final Inventory inventory;
+
+  /**
+   * Assembles the view of the specified page for the specified viewer.
+   *
+   * @param template shared page
+   * @param pageNum number of the shared page
+   * @param personalItems personal items of every viewer
+   * @param viewer viewer uuid
+   * @param locked slots which always show the shared item, e.g. navigation items
+   * @param pool pool to lease the inventory from, or null
+   */
+  PersonalPage(
+      Page template,
+      Integer pageNum,
+      PersonalItems personalItems,
+      UUID viewer,
+      IntPredicate locked,
+      InventoryPool pool) {
+    this.template = template;
+    this.pageNum = pageNum;
+    this.personalItems = personalItems;
+    this.viewer = viewer;
+    Inventory shared = template.getInventory();
+    String title = template.getTitle();
+    inventory =
+        pool != null && shared.getHolder() == null
+            ? pool.acquireLike(shared, title)
+            : Inventories.create(shared.getHolder(), shared.getType(), shared.getSize(), title);
+    ItemStack[] contents = shared.getContents();
+    for (Map.Entry<Integer, ItemStack> entry : overrides().entrySet()) {
+      int slot = entry.getKey();
+      if (slot < contents.length && !locked.test(slot)) {
+        contents[slot] = entry.getValue();
+      }
+    }
+    inventory.setContents(contents);
+  }
+
+  /**
+   * Brings the slots which aren't overridden in step with the shared page, writing only the slots
+   * which changed.
+   *
+   * @param locked slots which always show the shared item
+   */
+  void sync(IntPredicate locked) {
+    Inventory shared = template.getInventory();
+    Map<Integer, ItemStack> overrides = overrides();
+    for (int slot = 0; slot < inventory.getSize(); slot++) {
+      if (locked.test(slot) || !overrides.containsKey(slot)) {
+        PagedInventoryImpl.updateSlot(inventory, slot, shared.getItem(slot));
+      }
+    }
+  }
+
+  /**
+   * Writes the viewer's personal item of the specified slot, or the shared item if the slot isn't
+   * overridden anymore.
+   *
+   * @param slot slot
+   */
+  void refresh(int slot) {
+    ItemStack item = overrides().get(slot);
+    PagedInventoryImpl.updateSlot(
+        inventory, slot, item != null ? item : template.getInventory().getItem(slot));
+  }
+
+  private Map<Integer, ItemStack> overrides() {
+    Map<Integer, ItemStack> overrides = personalItems.get(viewer, pageNum);
+    return overrides != null ? overrides : Collections.emptyMap();
+  }
+
+  @Override
+  @NotNull
+  public Inventory getInventory() {
+    return inventory;
+  }
+
+  @Override
+  @Nullable
+  public String getTitle() {
+    return template.getTitle();
+  }
+
+  @Override
+  public boolean isTitleKnown() {
+    return template.isTitleKnown();
+  }
+
+  @Override
+  @NotNull
+  public UUID getPageUUID() {
+    return template.getPageUUID();
+  }
+}
@@ -0,0 +1,51 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the contents of pages straight from a snapshot file, as they're opened. The snapshot file
+ * is only ever read.
+ */
+final class SnapshotStore implements ContentSource {
+
+  private final FileChannel channel;
+
+  SnapshotStore(Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+  }
+
+  static Object region(long offset, int length) {
+    return new long[] {offset, length};
+  }
+
+  @Override
+  public byte[] load(Object handle) throws IOException {
+    long[] region = (long[]) handle;
+    ByteBuffer buffer = ByteBuffer.allocate((int) region[1]);
+    long position = region[0];
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException("Snapshot is truncated");
+      }
+      position += read;
+    }
+    return buffer.array();
+  }
+
+  @Override
+  public void free(Object handle) {}
+
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Measures how long server ticks take, by timing the interval between two runs of a task
+ * scheduled every tick. A healthy server ticks every 50 milliseconds.
+ */
+final class TickMonitor implements Runnable {
+
+  private static volatile TickMonitor instance;
+
+  /**
+   * Returns the shared tick monitor, starting it under the specified plugin if it isn't running.
+   *
+   * @param plugin plugin to schedule the monitor under
+   * @return tick monitor
+   */
+  static TickMonitor start(Plugin plugin) {
+    TickMonitor current = instance;
+    if (current != null && !current.task.isCancelled()) {
+      return current;
+    }
+    synchronized (TickMonitor.class) {
+      if (instance == null || instance.task.isCancelled()) {
+        TickMonitor monitor = new TickMonitor(plugin);
+        monitor.task = plugin.getServer().getScheduler().runTaskTimer(plugin, monitor, 1, 1);
+        instance = monitor;
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * Called when a plugin gets disabled. Bukkit cancels the tasks of a disabled plugin, so if the
+   * monitor runs under it, the monitor is moved over to the specified successor.
+   *
+   * @param disabled disabled plugin
+   * @param successor plugin to run the monitor under from now on, or null to leave it stopped until
+   *     it's started again
+   */
+  static void pluginDisabled(Plugin disabled, Plugin successor) {
+    synchronized (TickMonitor.class) {
+      if (instance == null || instance.plugin != disabled) {
+        return;
+      }
+      instance.task.cancel();
+      if (successor != null) {
+        start(successor);
+      }
+    }
+  }
+
+  private final Plugin plugin;
+  private BukkitTask task;
+  private long lastTick;
+  private volatile double averageTickMillis = 50;
+
+  private TickMonitor(Plugin plugin) {
+    this.plugin = plugin;
+  }
+
+  @Override
+  public void run() {
+    long now = System.nanoTime();
+    if (lastTick != 0) {
+      double tickMillis = (now - lastTick) / 1_000_000D;
+      averageTickMillis = averageTickMillis * 0.9 + tickMillis * 0.1;
+    }
+    lastTick = now;
+  }
+
+  /**
+   * Returns the moving average of the tick duration, in milliseconds.
+   *
+   * @return average tick duration
+   */
+  double getAverageTickMillis() {
+    return averageTickMillis;
+  }
+}
@@ -0,0 +1,111 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.util.UUID;
+
+/**
+ * The state of a player viewing a paged inventory: which page they view, whether they're being
+ * switched to another page right now and when the page was opened. The dispatcher maps every
+ * viewer to their session, so handling a click or a close takes a single lookup.
+ */
+final class ViewerSession {
+
+  private final UUID viewer;
+  private final PagedInventoryImpl owner;
+  private volatile Integer page;
+  private volatile boolean switching;
+  private volatile long openedAt;
+  private volatile PersonalPage personalPage;
+  // navigation state below is only touched on the server thread
+  private int pendingNavigation;
+  private boolean navigationScheduled;
+  private long lastNavigationAt;
+
+  ViewerSession(UUID viewer, PagedInventoryImpl owner) {
+    this.viewer = viewer;
+    this.owner = owner;
+  }
+
+  UUID getViewer() {
+    return viewer;
+  }
+
+  PagedInventoryImpl getOwner() {
+    return owner;
+  }
+
+  /**
+   * Returns the number of the page viewed.
+   *
+   * @return page number, or null if the session has no page opened yet
+   */
+  Integer getPage() {
+    return page;
+  }
+
+  boolean isSwitching() {
+    return switching;
+  }
+
+  void setSwitching(boolean switching) {
+    this.switching = switching;
+  }
+
+  /**
+   * Returns the time the viewed page was opened at.
+   *
+   * @return time in milliseconds
+   */
+  long getOpenedAt() {
+    return openedAt;
+  }
+
+  void opened(int page) {
+    this.page = page;
+    this.openedAt = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the view of the page assembled for this viewer, if the viewer has personal items on it.
+   *
+   * @return personal page or null if the viewer views the shared page
+   */
+  PersonalPage getPersonalPage() {
+    return personalPage;
+  }
+
+  void setPersonalPage(PersonalPage personalPage) {
+    this.personalPage = personalPage;
+  }
+
+  /**
+   * Adds the specified page offset to the navigation waiting to be applied.
+   *
+   * @param offset page offset, positive for forward
+   * @return whether the navigation still has to be scheduled
+   */
+  boolean queueNavigation(int offset) {
+    pendingNavigation += offset;
+    if (navigationScheduled) {
+      return false;
+    }
+    navigationScheduled = true;
+    return true;
+  }
+
+  /**
+   * Takes the page offset waiting to be applied, marking the navigation as done.
+   *
+   * @return page offset
+   */
+  int takeNavigation() {
+    int offset = pendingNavigation;
+    pendingNavigation = 0;
+    navigationScheduled = false;
+    lastNavigationAt = System.currentTimeMillis();
+    return offset;
+  }
+
+  long getLastNavigationAt() {
+    return lastNavigationAt;
+  }
+}
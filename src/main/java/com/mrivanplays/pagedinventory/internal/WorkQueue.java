@@ -0,0 +1,168 @@
+package com.mrivanplays.pagedinventory.internal;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Runs the work of every paged inventory on the server thread, spread across ticks. Each tick, the
+ * queued tasks are run by priority until the tick budget is spent, and what's left waits for the
+ * next tick. At least one task is run every tick, so a task taking longer than the budget can't
+ * stall the queue.
+ *
+ * <p>Before the queued tasks, every tick re-evaluates the due dynamic items of the paged
+ * inventories which have any. Only the pages which have viewers are visited, so dynamic items on
+ * pages nobody views cost nothing.
+ */
+final class WorkQueue implements Runnable {
+
+  /** Priority of queued work, the highest first. */
+  enum Priority {
+    /** Direct reactions to a player's click. */
+    INTERACTION,
+    /** Opening pages and handing over pages built in the background. */
+    OPEN,
+    /** Refreshing pages which are already being viewed. */
+    REFRESH
+  }
+
+  private static final Priority[] PRIORITIES = Priority.values();
+  private static volatile WorkQueue instance;
+  private static volatile long budgetNanos = TimeUnit.MILLISECONDS.toNanos(5);
+
+  /**
+   * Returns the shared work queue, starting it under the specified plugin if it isn't running.
+   *
+   * @param plugin plugin to schedule the queue under
+   * @return work queue
+   */
+  static WorkQueue start(Plugin plugin) {
+    WorkQueue current = instance;
+    if (current != null && !current.task.isCancelled()) {
+      return current;
+    }
+    synchronized (WorkQueue.class) {
+      if (instance == null || instance.task.isCancelled()) {
+        WorkQueue queue = new WorkQueue(plugin);
+        if (instance != null) {
+          // hand over whatever the cancelled queue didn't get to
+          for (int i = 0; i < PRIORITIES.length; i++) {
+            queue.queues[i].addAll(instance.queues[i]);
+          }
+          queue.dynamicItems.addAll(instance.dynamicItems);
+          queue.tick = instance.tick;
+        }
+        queue.task = plugin.getServer().getScheduler().runTaskTimer(plugin, queue, 1, 1);
+        instance = queue;
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * Called when a plugin gets disabled. Bukkit cancels the tasks of a disabled plugin, so if the
+   * queue runs under it, the queue is moved over to the specified successor.
+   *
+   * @param disabled disabled plugin
+   * @param successor plugin to run the queue under from now on, or null to leave it stopped until
+   *     it's started again
+   */
+  static void pluginDisabled(Plugin disabled, Plugin successor) {
+    synchronized (WorkQueue.class) {
+      if (instance == null || instance.plugin != disabled) {
+        return;
+      }
+      instance.task.cancel();
+      if (successor != null) {
+        start(successor);
+      }
+    }
+  }
+
+  /**
+   * Returns the shared work queue if it was ever started.
+   *
+   * @return work queue or null
+   */
+  static WorkQueue current() {
+    return instance;
+  }
+
+  /**
+   * Sets how long the queue may run tasks for each tick.
+   *
+   * @param budgetNanos budget in nanoseconds
+   */
+  static void setBudget(long budgetNanos) {
+    WorkQueue.budgetNanos = budgetNanos;
+  }
+
+  private final Plugin plugin;
+  private final Queue<Runnable>[] queues;
+  private final Set<PagedInventoryImpl> dynamicItems;
+  private BukkitTask task;
+  private long tick;
+
+  @SuppressWarnings("unchecked")
+  private WorkQueue(Plugin plugin) {
+    this.plugin = plugin;
+    this.queues = new Queue[PRIORITIES.length];
+    for (int i = 0; i < queues.length; i++) {
+      queues[i] = new ConcurrentLinkedQueue<>();
+    }
+    this.dynamicItems = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Makes the queue re-evaluate the dynamic items of the specified paged inventory every tick.
+   *
+   * @param impl paged inventory
+   */
+  void addDynamicItems(PagedInventoryImpl impl) {
+    dynamicItems.add(impl);
+  }
+
+  void removeDynamicItems(PagedInventoryImpl impl) {
+    dynamicItems.remove(impl);
+  }
+
+  /**
+   * Queues the specified task. Can be called from any thread.
+   *
+   * @param priority priority of the task
+   * @param task task
+   */
+  void submit(Priority priority, Runnable task) {
+    queues[priority.ordinal()].add(task);
+  }
+
+  @Override
+  public void run() {
+    tick++;
+    for (PagedInventoryImpl impl : dynamicItems) {
+      try {
+        impl.refreshDynamicItems(tick);
+      } catch (RuntimeException e) {
+        impl.getPlugin().getLogger().log(Level.SEVERE, "Could not refresh dynamic items", e);
+      }
+    }
+    long deadline = System.nanoTime() + budgetNanos;
+    boolean ranAny = false;
+    for (Queue<Runnable> queue : queues) {
+      Runnable next;
+      while ((!ranAny || System.nanoTime() < deadline) && (next = queue.poll()) != null) {
+        ranAny = true;
+        try {
+          next.run();
+        } catch (RuntimeException e) {
+          plugin.getLogger().log(Level.SEVERE, "Could not run paged inventory task", e);
+        }
+      }
+    }
+  }
+}